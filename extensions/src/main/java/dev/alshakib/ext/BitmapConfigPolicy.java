@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Policy to choose the config of the bitmaps created by {@link BitmapExt} and
+ * {@link DrawableExt}. The default policy is {@link #ARGB_8888}, and it can be
+ * changed globally with {@link #setDefault(BitmapConfigPolicy)}.
+ */
+public enum BitmapConfigPolicy {
+    /**
+     * Always use ARGB_8888, 4 bytes per pixel.
+     */
+    ARGB_8888,
+
+    /**
+     * Use RGB_565, 2 bytes per pixel, when the content is opaque, and ARGB_8888 otherwise.
+     */
+    RGB_565_IF_OPAQUE,
+
+    /**
+     * Use ALPHA_8, 1 byte per pixel, for masks where only the alpha channel is used.
+     */
+    ALPHA_8,
+
+    /**
+     * Render in ARGB_8888 and move the pixels to graphics memory as a HARDWARE bitmap
+     * on API 26 and above. The result is immutable and can only be drawn.
+     */
+    HARDWARE;
+
+    private static volatile BitmapConfigPolicy defaultPolicy = ARGB_8888;
+
+    @NonNull
+    public static BitmapConfigPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    /**
+     * Set the policy used when no policy is passed to a call.
+     *
+     * @param policy Default policy
+     */
+    public static void setDefault(@NonNull BitmapConfigPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Get the config to render content into.
+     *
+     * @param opaque Whether the content covers every pixel with opaque colors
+     * @return A config which a canvas can draw into
+     */
+    @NonNull
+    public Bitmap.Config getConfig(boolean opaque) {
+        switch (this) {
+            case RGB_565_IF_OPAQUE:
+                return opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+            case ALPHA_8:
+                return Bitmap.Config.ALPHA_8;
+            default:
+                return Bitmap.Config.ARGB_8888;
+        }
+    }
+
+    /**
+     * Convert a rendered bitmap to the final config of this policy, if it differs.
+     * The rendered bitmap is recycled, or returned to the pool, when it is converted.
+     *
+     * @param bitmap Rendered bitmap
+     * @param opaque Whether the content covers every pixel with opaque colors
+     * @param pool Pool to return the rendered bitmap to, or null to recycle it
+     * @return The bitmap in its final config
+     */
+    @NonNull
+    public Bitmap apply(@NonNull Bitmap bitmap, boolean opaque, @Nullable BitmapPool pool) {
+        Bitmap.Config config = getFinalConfig(opaque);
+        if (bitmap.getConfig() == config) {
+            return bitmap;
+        }
+        Bitmap converted = bitmap.copy(config, config == getConfig(opaque));
+        if (converted == null) {
+            return bitmap;
+        }
+        BitmapExt.recycleBitmap(pool, bitmap);
+        return converted;
+    }
+
+    /**
+     * Get the config of the bitmaps returned by {@link #apply(Bitmap, boolean, BitmapPool)}.
+     */
+    @NonNull
+    Bitmap.Config getFinalConfig(boolean opaque) {
+        if (this == HARDWARE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return Bitmap.Config.HARDWARE;
+        }
+        return getConfig(opaque);
+    }
+}
@@ -26,78 +26,704 @@
 
 package dev.alshakib.ext;
 
+import android.content.ContentResolver;
+import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.Shader;
+import android.net.Uri;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Future;
 
 public final class BitmapExt {
+    private static final int STREAM_MARK_LIMIT = 1024 * 1024;
+
+    /**
+     * Callback of an asynchronous collage, posted to the main thread, so it never runs
+     * before the call which requested the collage has returned.
+     */
+    public interface OnCollageReadyListener {
+        /**
+         * @param bitmap The collage, or null if it could not be created
+         */
+        void onCollageReady(@Nullable Bitmap bitmap);
+    }
+
     @Nullable
     public static Bitmap getBitmapCollage(@NonNull List<Bitmap> bitmapList, int width, int height) {
+        return getBitmapCollage(bitmapList, width, height, CollageLayout.DEFAULT, null);
+    }
+
+    @Nullable
+    public static Bitmap getBitmapCollage(@NonNull List<Bitmap> bitmapList, int width, int height,
+                                          @Nullable BitmapPool pool) {
+        return getBitmapCollage(bitmapList, width, height, CollageLayout.DEFAULT, pool);
+    }
+
+    @Nullable
+    public static Bitmap getBitmapCollage(@NonNull List<Bitmap> bitmapList, int width, int height,
+                                          @NonNull CollageLayout layout, @Nullable BitmapPool pool) {
+        return getBitmapCollage(bitmapList, width, height, layout, BitmapConfigPolicy.getDefault(), pool);
+    }
+
+    /**
+     * Create a collage of bitmaps. Each bitmap is center cropped straight into its
+     * tile of the result, so no intermediate bitmap is allocated per tile. Tiles of the
+     * default layout which an odd collage size makes a pixel wider or taller than half
+     * the collage are still cropped through an intermediate bitmap and stretched, as
+     * they always were. Other tiles sample the same source pixels as that crop, or at
+     * most one pixel next to them, from rounding of the tile offset.
+     *
+     * @param bitmapList Bitmaps to draw into the collage
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the tiles
+     * @param policy Policy to choose the config of the collage
+     * @param pool Pool to take the result from, or null to allocate it
+     * @return A collage bitmap, which can be returned to the pool when no longer used
+     */
+    @Nullable
+    public static Bitmap getBitmapCollage(@NonNull List<Bitmap> bitmapList, int width, int height,
+                                          @NonNull CollageLayout layout,
+                                          @NonNull BitmapConfigPolicy policy,
+                                          @Nullable BitmapPool pool) {
+        Bitmap result = null;
         try {
             bitmapList.removeAll(Collections.singletonList(null));
             if (bitmapList.isEmpty()) {
                 return null;
             }
-            if (bitmapList.size() == 1) {
+            if (bitmapList.size() == 1 && layout.getCornerRadius() == 0f) {
                 return bitmapList.get(0);
             }
-            Bitmap result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            boolean opaque = layout.isSeamless();
+            for (int i = 0; opaque && i < bitmapList.size(); i++) {
+                opaque = !bitmapList.get(i).hasAlpha();
+            }
+            result = obtainBitmap(pool, width, height, policy.getConfig(opaque));
 
             Canvas canvas = new Canvas(result);
+            Matrix matrix = new Matrix();
+            Paint paint = createTilePaint(layout);
+            int[] tiles = layout.getTiles(bitmapList.size(), width, height);
+            boolean legacy = layout == CollageLayout.DEFAULT && bitmapList.size() <= 4;
+            for (int i = 0, j = 0; j < tiles.length; i++, j += 4) {
+                if (legacy) {
+                    drawLegacyTile(canvas, bitmapList.get(i), tiles, j, width, height, pool);
+                } else {
+                    drawTile(canvas, bitmapList.get(i), tiles, j, layout.getCornerRadius(), matrix, paint);
+                }
+            }
+            return policy.apply(result, opaque, pool);
+        } catch (Exception ignored) { }
+        if (result != null) {
+            recycleBitmap(pool, result);
+        }
+        return null;
+    }
+
+    @Nullable
+    @WorkerThread
+    public static Bitmap getBitmapCollage(@NonNull List<Bitmap> bitmapList, @NonNull List<String> idList,
+                                          int width, int height, @NonNull CollageCache cache) {
+        return getBitmapCollage(bitmapList, idList, width, height, CollageLayout.DEFAULT, cache);
+    }
+
+    /**
+     * Create a collage of bitmaps, or get it from the cache if it was created before.
+     * The collage is shared with the cache, so it must not be recycled.
+     *
+     * @param bitmapList Bitmaps to draw into the collage
+     * @param idList Stable identities of the bitmaps, in the same order
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the tiles
+     * @param cache Cache to read the collage from and to write it to
+     * @return A collage bitmap
+     */
+    @Nullable
+    @WorkerThread
+    public static Bitmap getBitmapCollage(@NonNull List<Bitmap> bitmapList, @NonNull List<String> idList,
+                                          int width, int height, @NonNull CollageLayout layout,
+                                          @NonNull CollageCache cache) {
+        BitmapConfigPolicy policy = BitmapConfigPolicy.getDefault();
+        String key = CollageCache.createKey(idList, width, height, layout, policy);
+        Bitmap collage = cache.get(key);
+        if (collage != null) {
+            return collage;
+        }
+        collage = getBitmapCollage(bitmapList, width, height, layout, policy, null);
+        if (collage != null && !bitmapList.contains(collage)) {
+            cache.put(key, collage);
+        }
+        return collage;
+    }
+
+    /**
+     * Create a collage of image files. Each file is decoded subsampled to the
+     * size of its tile, so memory use follows the collage size, not the file size.
+     *
+     * @param fileList Image files to draw into the collage
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @return A collage bitmap
+     */
+    @Nullable
+    public static Bitmap getBitmapCollageFromFiles(@NonNull List<File> fileList, int width, int height) {
+        List<BitmapSource> sourceList = new ArrayList<>(fileList.size());
+        for (File file : fileList) {
+            sourceList.add(file != null ? sourceOf(file) : null);
+        }
+        return getBitmapCollageFromSources(sourceList, width, height, CollageLayout.DEFAULT, null);
+    }
+
+    /**
+     * Create a collage of images from content URIs. Each image is decoded
+     * subsampled to the size of its tile.
+     *
+     * @param context Context to get the content resolver
+     * @param uriList Image URIs to draw into the collage
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @return A collage bitmap
+     */
+    @Nullable
+    public static Bitmap getBitmapCollageFromUris(@NonNull Context context, @NonNull List<Uri> uriList,
+                                                  int width, int height) {
+        List<BitmapSource> sourceList = new ArrayList<>(uriList.size());
+        for (Uri uri : uriList) {
+            sourceList.add(uri != null ? sourceOf(context, uri) : null);
+        }
+        return getBitmapCollageFromSources(sourceList, width, height, CollageLayout.DEFAULT, null);
+    }
 
-            if (bitmapList.size() == 2) {
-                Rect leftRect = new Rect(0, 0, width / 2, height);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(0), width / 2f, height),
-                        null, leftRect, null);
-                Rect rightRect = new Rect(width / 2, 0, width, height);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(1), width / 2f, height),
-                        null, rightRect, null);
-                return result;
+    /**
+     * Create a collage of images from input streams. Each image is decoded
+     * subsampled to the size of its tile. The streams are not closed.
+     *
+     * @param streamList Image streams to draw into the collage
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @return A collage bitmap
+     */
+    @Nullable
+    public static Bitmap getBitmapCollageFromStreams(@NonNull List<InputStream> streamList,
+                                                     int width, int height) {
+        List<BitmapSource> sourceList = new ArrayList<>(streamList.size());
+        for (InputStream inputStream : streamList) {
+            sourceList.add(inputStream != null ? sourceOf(inputStream) : null);
+        }
+        return getBitmapCollageFromSources(sourceList, width, height, CollageLayout.DEFAULT, null);
+    }
+
+    @Nullable
+    public static Bitmap getBitmapCollageFromSources(@NonNull List<? extends BitmapSource> sourceList,
+                                                     int width, int height,
+                                                     @Nullable BitmapPool pool) {
+        return getBitmapCollageFromSources(sourceList, width, height, CollageLayout.DEFAULT, pool);
+    }
+
+    @Nullable
+    public static Bitmap getBitmapCollageFromSources(@NonNull List<? extends BitmapSource> sourceList,
+                                                     int width, int height,
+                                                     @NonNull CollageLayout layout,
+                                                     @Nullable BitmapPool pool) {
+        return getBitmapCollageFromSources(sourceList, width, height, layout,
+                BitmapConfigPolicy.getDefault(), pool);
+    }
+
+    /**
+     * Create a collage of bitmap sources. Each source is decoded at the size of its
+     * tile, drawn, and recycled before the next one is decoded. Since the sources are
+     * only known to be opaque once decoded, the collage is converted to the final
+     * config of the policy after it is drawn.
+     *
+     * @param sourceList Bitmap sources to draw into the collage
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the tiles
+     * @param policy Policy to choose the config of the collage
+     * @param pool Pool to take the result from, or null to allocate it
+     * @return A collage bitmap, which can be returned to the pool when no longer used
+     */
+    @Nullable
+    public static Bitmap getBitmapCollageFromSources(@NonNull List<? extends BitmapSource> sourceList,
+                                                     int width, int height,
+                                                     @NonNull CollageLayout layout,
+                                                     @NonNull BitmapConfigPolicy policy,
+                                                     @Nullable BitmapPool pool) {
+        Bitmap result = null;
+        try {
+            sourceList.removeAll(Collections.singletonList(null));
+            if (sourceList.isEmpty()) {
+                return null;
             }
-            if (bitmapList.size() == 3) {
-                Rect leftRect = new Rect(0, 0, width / 2, height);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(0), width / 2F, height),
-                        null, leftRect, null);
-
-                Rect topRight = new Rect(width / 2, 0, width, height / 2);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(1), width / 2F, height / 2F),
-                        null, topRight, null);
-
-                Rect bottomRight = new Rect(width / 2, height / 2, width, height);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(2), width / 2F, height / 2F),
-                        null, bottomRight, null);
-                return result;
+            if (sourceList.size() == 1 && layout.getCornerRadius() == 0f) {
+                Bitmap scaled = scaleToCenterCrop(sourceList.get(0), width, height, pool);
+                return scaled != null ? policy.apply(scaled, !scaled.hasAlpha(), pool) : null;
             }
-            if (bitmapList.size() > 3) {
-                Rect topLeft = new Rect(0, 0, width / 2, height / 2);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(0), width / 2F, height / 2F),
-                        null, topLeft, null);
-
-                Rect topRight = new Rect(width / 2, 0, width, height / 2);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(1), width / 2F, height / 2F),
-                        null, topRight, null);
-
-                Rect bottomLeft = new Rect(0, height / 2, width / 2, height);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(2), width / 2F, height / 2F),
-                        null,bottomLeft, null);
-
-                Rect bottomRight = new Rect(width / 2, height / 2, width, height);
-                canvas.drawBitmap(scaleToCenterCrop(bitmapList.get(3), width / 2F, height / 2F),
-                        null, bottomRight, null);
-                return result;
+            boolean opaque = layout.isSeamless();
+            result = obtainBitmap(pool, width, height, policy.getConfig(false));
+
+            Canvas canvas = new Canvas(result);
+            Matrix matrix = new Matrix();
+            Paint paint = createTilePaint(layout);
+            int[] tiles = layout.getTiles(sourceList.size(), width, height);
+            for (int i = 0, j = 0; j < tiles.length; i++, j += 4) {
+                Bitmap tile = sourceList.get(i)
+                        .decode(tiles[j + 2] - tiles[j], tiles[j + 3] - tiles[j + 1]);
+                if (tile != null) {
+                    opaque &= !tile.hasAlpha();
+                    drawTile(canvas, tile, tiles, j, layout.getCornerRadius(), matrix, paint);
+                    tile.recycle();
+                } else {
+                    opaque = false;
+                }
             }
+            return policy.apply(result, opaque, pool);
         } catch (Exception ignored) { }
+        if (result != null) {
+            recycleBitmap(pool, result);
+        }
         return null;
     }
 
+    @Nullable
+    @WorkerThread
+    public static Bitmap getBitmapCollageFromSources(@NonNull List<? extends BitmapSource> sourceList,
+                                                     @NonNull List<String> idList,
+                                                     int width, int height,
+                                                     @NonNull CollageCache cache) {
+        return getBitmapCollageFromSources(sourceList, idList, width, height,
+                CollageLayout.DEFAULT, cache);
+    }
+
+    /**
+     * Create a collage of bitmap sources, or get it from the cache if it was created
+     * before, in which case no source is decoded. The collage is shared with the cache,
+     * so it must not be recycled.
+     *
+     * @param sourceList Bitmap sources to draw into the collage
+     * @param idList Stable identities of the sources, in the same order
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the tiles
+     * @param cache Cache to read the collage from and to write it to
+     * @return A collage bitmap
+     */
+    @Nullable
+    @WorkerThread
+    public static Bitmap getBitmapCollageFromSources(@NonNull List<? extends BitmapSource> sourceList,
+                                                     @NonNull List<String> idList,
+                                                     int width, int height,
+                                                     @NonNull CollageLayout layout,
+                                                     @NonNull CollageCache cache) {
+        BitmapConfigPolicy policy = BitmapConfigPolicy.getDefault();
+        String key = CollageCache.createKey(idList, width, height, layout, policy);
+        Bitmap collage = cache.get(key);
+        if (collage != null) {
+            return collage;
+        }
+        collage = getBitmapCollageFromSources(sourceList, width, height, layout, policy, null);
+        if (collage != null) {
+            cache.put(key, collage);
+        }
+        return collage;
+    }
+
+    @NonNull
+    public static Future<Bitmap> getBitmapCollageAsync(@NonNull Object target,
+                                                       @NonNull List<? extends BitmapSource> sourceList,
+                                                       int width, int height,
+                                                       @Nullable BitmapPool pool,
+                                                       @NonNull OnCollageReadyListener listener) {
+        return getBitmapCollageAsync(target, sourceList, width, height,
+                CollageLayout.DEFAULT, BitmapConfigPolicy.getDefault(), pool, listener);
+    }
+
+    /**
+     * Create a collage of bitmap sources in the background. Tiles are decoded in
+     * parallel on a bounded executor and composed once the last one is decoded.
+     * A new request for the same target cancels the previous one, whose listener
+     * is then never invoked.
+     *
+     * @param target Object the collage is created for, usually the view showing it
+     * @param sourceList Bitmap sources to draw into the collage
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the tiles
+     * @param policy Policy to choose the config of the collage
+     * @param pool Pool to take the result from, or null to allocate it
+     * @param listener Listener to receive the collage on the main thread
+     * @return A future of the collage, which can be cancelled
+     */
+    @NonNull
+    public static Future<Bitmap> getBitmapCollageAsync(@NonNull Object target,
+                                                       @NonNull List<? extends BitmapSource> sourceList,
+                                                       int width, int height,
+                                                       @NonNull CollageLayout layout,
+                                                       @NonNull BitmapConfigPolicy policy,
+                                                       @Nullable BitmapPool pool,
+                                                       @NonNull OnCollageReadyListener listener) {
+        return CollageTask.submit(target, sourceList, width, height, layout, policy,
+                pool, null, null, listener);
+    }
+
+    @NonNull
+    public static Future<Bitmap> getBitmapCollageAsync(@NonNull Object target,
+                                                       @NonNull List<? extends BitmapSource> sourceList,
+                                                       @NonNull List<String> idList,
+                                                       int width, int height,
+                                                       @NonNull CollageCache cache,
+                                                       @NonNull OnCollageReadyListener listener) {
+        return getBitmapCollageAsync(target, sourceList, idList, width, height,
+                CollageLayout.DEFAULT, cache, listener);
+    }
+
+    /**
+     * Create a collage of bitmap sources in the background, served from the cache
+     * when it was created before. A collage found in the memory tier is delivered
+     * right away, the disk tier is read on the background executor.
+     *
+     * @param target Object the collage is created for, usually the view showing it
+     * @param sourceList Bitmap sources to draw into the collage
+     * @param idList Stable identities of the sources, in the same order
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the tiles
+     * @param cache Cache to read the collage from and to write it to
+     * @param listener Listener to receive the collage on the main thread
+     * @return A future of the collage, which can be cancelled
+     */
+    @NonNull
+    public static Future<Bitmap> getBitmapCollageAsync(@NonNull Object target,
+                                                       @NonNull List<? extends BitmapSource> sourceList,
+                                                       @NonNull List<String> idList,
+                                                       int width, int height,
+                                                       @NonNull CollageLayout layout,
+                                                       @NonNull CollageCache cache,
+                                                       @NonNull OnCollageReadyListener listener) {
+        BitmapConfigPolicy policy = BitmapConfigPolicy.getDefault();
+        return CollageTask.submit(target, sourceList, width, height, layout, policy, null, cache,
+                CollageCache.createKey(idList, width, height, layout, policy), listener);
+    }
+
+    /**
+     * Cancel the pending asynchronous collage of a target, if any.
+     *
+     * @param target Object the collage was requested for
+     */
+    public static void cancelBitmapCollage(@NonNull Object target) {
+        CollageTask.cancel(target);
+    }
+
     public static Bitmap scaleToCenterCrop(Bitmap source, float width, float height) {
+        return scaleToCenterCrop(source, width, height, null);
+    }
+
+    /**
+     * Scale a bitmap to fill the given size, cropping the overflow around the center.
+     *
+     * @param source Bitmap to scale
+     * @param width Width of the result
+     * @param height Height of the result
+     * @param pool Pool to take the result from, or null to allocate it
+     * @return A scaled bitmap
+     */
+    public static Bitmap scaleToCenterCrop(Bitmap source, float width, float height,
+                                           @Nullable BitmapPool pool) {
+        RectF target = new RectF();
+        setCenterCropRect(target, source, width, height);
+        Bitmap dest = obtainBitmap(pool, (int) width, (int) height, source.getConfig());
+        Canvas canvas = new Canvas(dest);
+        canvas.drawBitmap(source, null, target, null);
+        return dest;
+    }
+
+    /**
+     * Decode a bitmap source at a size close to the given size and center crop it
+     * to exactly that size.
+     *
+     * @param source Bitmap source to decode
+     * @param width Width of the result
+     * @param height Height of the result
+     * @param pool Pool to take the result from, or null to allocate it
+     * @return A scaled bitmap or null if the source can not be decoded
+     */
+    @Nullable
+    public static Bitmap scaleToCenterCrop(@NonNull BitmapSource source, int width, int height,
+                                           @Nullable BitmapPool pool) {
+        Bitmap decoded = source.decode(width, height);
+        if (decoded == null) {
+            return null;
+        }
+        try {
+            return scaleToCenterCrop(decoded, width, height, pool);
+        } finally {
+            decoded.recycle();
+        }
+    }
+
+    @Nullable
+    public static Bitmap scaleToCenterCrop(@NonNull File file, int width, int height) {
+        return scaleToCenterCrop(sourceOf(file), width, height, null);
+    }
+
+    @Nullable
+    public static Bitmap scaleToCenterCrop(@NonNull Context context, @NonNull Uri uri,
+                                           int width, int height) {
+        return scaleToCenterCrop(sourceOf(context, uri), width, height, null);
+    }
+
+    @Nullable
+    public static Bitmap scaleToCenterCrop(@NonNull InputStream inputStream, int width, int height) {
+        return scaleToCenterCrop(sourceOf(inputStream), width, height, null);
+    }
+
+    /**
+     * Create a bitmap source of an image file.
+     *
+     * @param file Image file to decode
+     * @return A bitmap source
+     */
+    @NonNull
+    public static BitmapSource sourceOf(@NonNull File file) {
+        return (reqWidth, reqHeight) -> decodeSampledBitmap(file, reqWidth, reqHeight);
+    }
+
+    /**
+     * Create a bitmap source of a content URI.
+     *
+     * @param context Context to get the content resolver
+     * @param uri Image URI to decode
+     * @return A bitmap source
+     */
+    @NonNull
+    public static BitmapSource sourceOf(@NonNull Context context, @NonNull Uri uri) {
+        Context applicationContext = context.getApplicationContext();
+        return (reqWidth, reqHeight) -> decodeSampledBitmap(applicationContext, uri, reqWidth, reqHeight);
+    }
+
+    /**
+     * Create a bitmap source of an input stream. The stream can only be decoded once,
+     * and it is not closed.
+     *
+     * @param inputStream Image stream to decode
+     * @return A bitmap source
+     */
+    @NonNull
+    public static BitmapSource sourceOf(@NonNull InputStream inputStream) {
+        return (reqWidth, reqHeight) -> decodeSampledBitmap(inputStream, reqWidth, reqHeight);
+    }
+
+    /**
+     * Decode an image file subsampled so that it still covers the requested size.
+     *
+     * @param file Image file to decode
+     * @param reqWidth Requested width
+     * @param reqHeight Requested height
+     * @return A bitmap or null if the file can not be decoded
+     */
+    @Nullable
+    public static Bitmap decodeSampledBitmap(@NonNull File file, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    /**
+     * Decode an image from a content URI subsampled so that it still covers the
+     * requested size.
+     *
+     * @param context Context to get the content resolver
+     * @param uri Image URI to decode
+     * @param reqWidth Requested width
+     * @param reqHeight Requested height
+     * @return A bitmap or null if the image can not be decoded
+     */
+    @Nullable
+    public static Bitmap decodeSampledBitmap(@NonNull Context context, @NonNull Uri uri,
+                                             int reqWidth, int reqHeight) {
+        ContentResolver contentResolver = context.getContentResolver();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream inputStream = contentResolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(inputStream, null, options);
+        } catch (IOException e) {
+            return null;
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        try (InputStream inputStream = contentResolver.openInputStream(uri)) {
+            return BitmapFactory.decodeStream(inputStream, null, options);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decode an image stream subsampled so that it still covers the requested size.
+     * The stream is not closed.
+     *
+     * @param inputStream Image stream to decode
+     * @param reqWidth Requested width
+     * @param reqHeight Requested height
+     * @return A bitmap or null if the stream can not be decoded
+     */
+    @Nullable
+    public static Bitmap decodeSampledBitmap(@NonNull InputStream inputStream,
+                                             int reqWidth, int reqHeight) {
+        InputStream markableStream = inputStream.markSupported()
+                ? inputStream : new BufferedInputStream(inputStream);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try {
+            markableStream.mark(STREAM_MARK_LIMIT);
+            BitmapFactory.decodeStream(markableStream, null, options);
+            markableStream.reset();
+        } catch (IOException e) {
+            return null;
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeStream(markableStream, null, options);
+    }
+
+    /**
+     * Calculate the largest power of two sample size which keeps both sides of an
+     * image at or above the requested size.
+     *
+     * @param width Width of the image
+     * @param height Height of the image
+     * @param reqWidth Requested width
+     * @param reqHeight Requested height
+     * @return A sample size for {@link BitmapFactory.Options#inSampleSize}
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Draw a bitmap into a rectangle of a canvas, scaled to fill the rectangle and
+     * cropped around the center.
+     *
+     * @param canvas Canvas to draw into
+     * @param source Bitmap to draw
+     * @param dest Rectangle of the canvas to fill
+     */
+    public static void drawCenterCrop(@NonNull Canvas canvas, @NonNull Bitmap source,
+                                      @NonNull Rect dest) {
+        drawCenterCrop(canvas, source, dest.left, dest.top, dest.right, dest.bottom);
+    }
+
+    /**
+     * Draw a bitmap center cropped into a rectangle with the same mapping as
+     * {@link #scaleToCenterCrop}, so the pixels match a crop drawn at the same offset.
+     */
+    static void drawCenterCrop(@NonNull Canvas canvas, @NonNull Bitmap source,
+                               int left, int top, int right, int bottom) {
+        RectF target = new RectF();
+        setCenterCropRect(target, source, right - left, bottom - top);
+        int saveCount = canvas.save();
+        canvas.clipRect(left, top, right, bottom);
+        canvas.translate(left, top);
+        canvas.drawBitmap(source, null, target, null);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * Draw a tile of a collage of the default layout of up to four bitmaps the way
+     * collages were drawn before tiles were drawn in a single pass: cropped at half
+     * the collage size as a float and stretched over the tile. The sizes only differ
+     * when the collage size is odd, and only those tiles take an intermediate bitmap.
+     */
+    private static void drawLegacyTile(@NonNull Canvas canvas, @NonNull Bitmap source,
+                                       @NonNull int[] tiles, int offset, int width, int height,
+                                       @Nullable BitmapPool pool) {
+        int left = tiles[offset];
+        int top = tiles[offset + 1];
+        int right = tiles[offset + 2];
+        int bottom = tiles[offset + 3];
+        float cropWidth = right - left == width ? width : width / 2f;
+        float cropHeight = bottom - top == height ? height : height / 2f;
+        if (cropWidth == right - left && cropHeight == bottom - top) {
+            drawCenterCrop(canvas, source, left, top, right, bottom);
+            return;
+        }
+        Bitmap tile = scaleToCenterCrop(source, cropWidth, cropHeight, pool);
+        canvas.drawBitmap(tile, null, new Rect(left, top, right, bottom), null);
+        recycleBitmap(pool, tile);
+    }
+
+    /**
+     * Draw a bitmap center cropped into the tile of a collage which starts at the
+     * given offset of the tile table, with rounded corners when a radius is set.
+     */
+    static void drawTile(@NonNull Canvas canvas, @NonNull Bitmap source, @NonNull int[] tiles,
+                         int offset, float cornerRadius, @NonNull Matrix matrix,
+                         @Nullable Paint paint) {
+        int left = tiles[offset];
+        int top = tiles[offset + 1];
+        int right = tiles[offset + 2];
+        int bottom = tiles[offset + 3];
+        if (cornerRadius <= 0f || paint == null) {
+            drawCenterCrop(canvas, source, left, top, right, bottom);
+            return;
+        }
+        setCenterCropMatrix(matrix, source, left, top, right, bottom);
+        BitmapShader shader = new BitmapShader(source, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+        shader.setLocalMatrix(matrix);
+        paint.setShader(shader);
+        canvas.drawRoundRect(left, top, right, bottom, cornerRadius, cornerRadius, paint);
+        paint.setShader(null);
+    }
+
+    @Nullable
+    static Paint createTilePaint(@NonNull CollageLayout layout) {
+        return layout.getCornerRadius() > 0f ? new Paint(Paint.ANTI_ALIAS_FLAG) : null;
+    }
+
+    private static void setCenterCropRect(@NonNull RectF target, @NonNull Bitmap source,
+                                          float width, float height) {
         float sourceWidth = source.getWidth();
         float sourceHeight = source.getHeight();
 
@@ -111,12 +737,36 @@ public final class BitmapExt {
         float left = (width - scaledWidth) / 2f;
         float top = (height - scaledHeight) / 2f;
 
-        RectF targetRect = new RectF(left, top, left + scaledWidth, top + scaledHeight);
+        target.set(left, top, left + scaledWidth, top + scaledHeight);
+    }
 
-        Bitmap dest = Bitmap.createBitmap((int) width, (int) height, source.getConfig());
-        Canvas canvas = new Canvas(dest);
-        canvas.drawBitmap(source, null, targetRect, null);
+    private static void setCenterCropMatrix(@NonNull Matrix matrix, @NonNull Bitmap source,
+                                            int left, int top, int right, int bottom) {
+        float width = right - left;
+        float height = bottom - top;
+        float sourceWidth = source.getWidth();
+        float sourceHeight = source.getHeight();
+        float scale = Math.max(width / sourceWidth, height / sourceHeight);
 
-        return dest;
+        matrix.setScale(scale, scale);
+        matrix.postTranslate(left + (width - scale * sourceWidth) / 2f,
+                top + (height - scale * sourceHeight) / 2f);
+    }
+
+    static void recycleBitmap(@Nullable BitmapPool pool, @NonNull Bitmap bitmap) {
+        if (pool != null) {
+            pool.put(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    @NonNull
+    static Bitmap obtainBitmap(@Nullable BitmapPool pool, int width, int height,
+                               @Nullable Bitmap.Config config) {
+        if (pool == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+        return pool.get(width, height, config != null ? config : Bitmap.Config.ARGB_8888);
     }
 }
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pool of reusable mutable bitmaps, bucketed by width, height and config.
+ * The pool keeps at most {@link #getMaxSize()} bytes and evicts the least
+ * recently returned bitmap first when the budget is exceeded.
+ */
+public final class BitmapPool {
+    private static final int MAX_DIMENSION = (1 << 28) - 1;
+
+    private final LongSparseArray<ArrayDeque<Bitmap>> buckets = new LongSparseArray<>();
+    private final LinkedHashMap<Bitmap, Long> lruOrder = new LinkedHashMap<>();
+    private final long maxSize;
+
+    private long currentSize;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    /**
+     * Create a bitmap pool.
+     *
+     * @param maxSize Maximum size of the pool in bytes
+     */
+    public BitmapPool(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get a mutable bitmap from the pool, or create a new one if the pool has
+     * no bitmap of the same size and config. The bitmap is cleared to transparent.
+     *
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param config Config of the bitmap
+     * @return A mutable bitmap
+     */
+    @NonNull
+    public Bitmap get(int width, int height, @NonNull Bitmap.Config config) {
+        Bitmap bitmap = getDirty(width, height, config);
+        if (bitmap != null) {
+            bitmap.eraseColor(Color.TRANSPARENT);
+            return bitmap;
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Get a mutable bitmap from the pool without clearing its pixels.
+     *
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param config Config of the bitmap
+     * @return A pooled bitmap or null if there is no match
+     */
+    @Nullable
+    public synchronized Bitmap getDirty(int width, int height, @NonNull Bitmap.Config config) {
+        ArrayDeque<Bitmap> bucket = isPoolable(width, height)
+                ? buckets.get(getKey(width, height, config)) : null;
+        Bitmap bitmap = bucket != null ? bucket.pollLast() : null;
+        if (bitmap == null) {
+            missCount++;
+            return null;
+        }
+        lruOrder.remove(bitmap);
+        currentSize -= bitmap.getAllocationByteCount();
+        hitCount++;
+        return bitmap;
+    }
+
+    /**
+     * Return a bitmap to the pool. Bitmaps that can not be reused are recycled.
+     * The caller must not use the bitmap after returning it.
+     *
+     * @param bitmap Bitmap to return
+     */
+    public synchronized void put(@NonNull Bitmap bitmap) {
+        if (bitmap.isRecycled() || lruOrder.containsKey(bitmap)) {
+            return;
+        }
+        Bitmap.Config config = bitmap.getConfig();
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || config == null || size > maxSize
+                || !isPoolable(bitmap.getWidth(), bitmap.getHeight())) {
+            bitmap.recycle();
+            return;
+        }
+        long key = getKey(bitmap.getWidth(), bitmap.getHeight(), config);
+        ArrayDeque<Bitmap> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(key, bucket);
+        }
+        bucket.addLast(bitmap);
+        lruOrder.put(bitmap, key);
+        currentSize += size;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Evict the least recently returned bitmaps until the pool fits in the given size.
+     *
+     * @param size Size of the pool in bytes
+     */
+    public synchronized void trimToSize(long size) {
+        Iterator<Map.Entry<Bitmap, Long>> iterator = lruOrder.entrySet().iterator();
+        while (currentSize > size && iterator.hasNext()) {
+            Map.Entry<Bitmap, Long> eldest = iterator.next();
+            Bitmap bitmap = eldest.getKey();
+            iterator.remove();
+            ArrayDeque<Bitmap> bucket = buckets.get(eldest.getValue());
+            if (bucket != null) {
+                bucket.removeFirstOccurrence(bitmap);
+            }
+            currentSize -= bitmap.getAllocationByteCount();
+            evictionCount++;
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Evict and recycle all bitmaps of the pool.
+     */
+    public void clear() {
+        trimToSize(-1);
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getCurrentSize() {
+        return currentSize;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static boolean isPoolable(int width, int height) {
+        return width > 0 && height > 0 && width <= MAX_DIMENSION && height <= MAX_DIMENSION;
+    }
+
+    private static long getKey(int width, int height, @NonNull Bitmap.Config config) {
+        return ((long) width << 36) | ((long) height << 8) | config.ordinal();
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A two level cache of generated collages. Collages are kept decoded in a
+ * byte bounded memory LRU, and encoded in a size bounded disk directory.
+ * Bitmaps returned by the cache are shared, so they must not be recycled
+ * or returned to a {@link BitmapPool}.
+ */
+public final class CollageCache {
+    private static final String FILE_EXTENSION = ".collage";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File diskDirectory;
+    private final long diskMaxSize;
+    private final Bitmap.CompressFormat compressFormat;
+    private final int compressQuality;
+
+    private final Object diskLock = new Object();
+    private long diskSize = -1;
+
+    private int memoryHitCount;
+    private int diskHitCount;
+    private int missCount;
+
+    /**
+     * Create a collage cache which keeps collages as PNG files on disk.
+     *
+     * @param memoryMaxSize Maximum size of the memory tier in bytes
+     * @param diskDirectory Directory of the disk tier, or null to keep collages in memory only
+     * @param diskMaxSize Maximum size of the disk tier in bytes
+     */
+    public CollageCache(int memoryMaxSize, @Nullable File diskDirectory, long diskMaxSize) {
+        this(memoryMaxSize, diskDirectory, diskMaxSize, Bitmap.CompressFormat.PNG, 100);
+    }
+
+    /**
+     * Create a collage cache.
+     *
+     * @param memoryMaxSize Maximum size of the memory tier in bytes
+     * @param diskDirectory Directory of the disk tier, or null to keep collages in memory only
+     * @param diskMaxSize Maximum size of the disk tier in bytes
+     * @param compressFormat Format of the files of the disk tier
+     * @param compressQuality Quality hint of the compressor, 0 - 100
+     */
+    public CollageCache(int memoryMaxSize, @Nullable File diskDirectory, long diskMaxSize,
+                        @NonNull Bitmap.CompressFormat compressFormat, int compressQuality) {
+        this.memoryCache = new LruCache<String, Bitmap>(memoryMaxSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+        this.diskDirectory = diskDirectory;
+        this.diskMaxSize = diskMaxSize;
+        this.compressFormat = compressFormat;
+        this.compressQuality = compressQuality;
+    }
+
+    @NonNull
+    public static String createKey(@NonNull List<String> idList, int width, int height) {
+        return createKey(idList, width, height, CollageLayout.DEFAULT);
+    }
+
+    @NonNull
+    public static String createKey(@NonNull List<String> idList, int width, int height,
+                                   @NonNull CollageLayout layout) {
+        return createKey(idList, width, height, layout, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Create a cache key of a collage. Collages rendered with different policies
+     * have different configs, so the policy is part of the key.
+     *
+     * @param idList Stable identities of the collage inputs, in drawing order
+     * @param width Width of the collage
+     * @param height Height of the collage
+     * @param layout Layout of the collage
+     * @param policy Policy the collage is rendered with
+     * @return A cache key
+     */
+    @NonNull
+    public static String createKey(@NonNull List<String> idList, int width, int height,
+                                   @NonNull CollageLayout layout, @NonNull BitmapConfigPolicy policy) {
+        String layoutKey = layout.getKey();
+        String policyKey = policy.name();
+        StringBuilder builder = new StringBuilder(32 + policyKey.length() + layoutKey.length()
+                + idList.size() * 16);
+        builder.append(policyKey).append('/').append(width).append('x').append(height).append('/').append(layoutKey)
+                .append('/').append(idList.size());
+        for (String id : idList) {
+            builder.append('/').append(id != null ? id.length() : -1).append(':').append(id);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Get a collage from the memory tier only.
+     *
+     * @param key Cache key of the collage
+     * @return The collage or null if it is not in memory
+     */
+    @Nullable
+    public Bitmap getFromMemory(@NonNull String key) {
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) {
+            synchronized (this) {
+                memoryHitCount++;
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Get a collage from the memory tier, or else from the disk tier.
+     *
+     * @param key Cache key of the collage
+     * @return The collage or null if it is not cached
+     */
+    @Nullable
+    @WorkerThread
+    public Bitmap get(@NonNull String key) {
+        Bitmap bitmap = getFromMemory(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        bitmap = readFromDisk(key);
+        synchronized (this) {
+            if (bitmap != null) {
+                diskHitCount++;
+            } else {
+                missCount++;
+            }
+        }
+        if (bitmap != null) {
+            memoryCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Put a collage into both tiers of the cache.
+     *
+     * @param key Cache key of the collage
+     * @param bitmap The collage, which must not be recycled afterwards
+     */
+    @WorkerThread
+    public void put(@NonNull String key, @NonNull Bitmap bitmap) {
+        memoryCache.put(key, bitmap);
+        writeToDisk(key, bitmap);
+    }
+
+    /**
+     * Remove a collage from both tiers of the cache.
+     *
+     * @param key Cache key of the collage
+     */
+    @WorkerThread
+    public void remove(@NonNull String key) {
+        memoryCache.remove(key);
+        if (diskDirectory == null) {
+            return;
+        }
+        synchronized (diskLock) {
+            File file = getFile(key);
+            long length = file.length();
+            if (file.delete() && diskSize >= 0) {
+                diskSize -= length;
+            }
+        }
+    }
+
+    /**
+     * Remove all collages from the memory tier.
+     */
+    public void evictMemory() {
+        memoryCache.evictAll();
+    }
+
+    public synchronized int getMemoryHitCount() {
+        return memoryHitCount;
+    }
+
+    public synchronized int getDiskHitCount() {
+        return diskHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public int getMemorySize() {
+        return memoryCache.size();
+    }
+
+    public long getDiskSize() {
+        synchronized (diskLock) {
+            return Math.max(diskSize, 0);
+        }
+    }
+
+    @Nullable
+    private Bitmap readFromDisk(@NonNull String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        File file = getFile(key);
+        byte[] bytes;
+        synchronized (diskLock) {
+            if (!file.isFile()) {
+                return null;
+            }
+            try (FileInputStream inputStream = new FileInputStream(file);
+                 FileChannel channel = inputStream.getChannel()) {
+                long size = channel.size();
+                if (size <= 0 || size > Integer.MAX_VALUE) {
+                    return null;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        return null;
+                    }
+                }
+                bytes = buffer.array();
+            } catch (IOException e) {
+                return null;
+            }
+            // Touch the file so that disk eviction is least recently used
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+        }
+        Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        BitmapConfigPolicy policy = getPolicy(key);
+        if (bitmap == null || policy == null) {
+            return bitmap;
+        }
+        // Files decode as ARGB_8888, so restore the config the collage was cached with
+        return policy.apply(bitmap, !bitmap.hasAlpha(), null);
+    }
+
+    @Nullable
+    private static BitmapConfigPolicy getPolicy(@NonNull String key) {
+        int end = key.indexOf('/');
+        if (end < 0) {
+            return null;
+        }
+        String name = key.substring(0, end);
+        for (BitmapConfigPolicy policy : BitmapConfigPolicy.values()) {
+            if (policy.name().equals(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private void writeToDisk(@NonNull String key, @NonNull Bitmap bitmap) {
+        if (diskDirectory == null) {
+            return;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(
+                Math.max(bitmap.getWidth() * bitmap.getHeight(), 32));
+        if (!bitmap.compress(compressFormat, compressQuality, outputStream)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(outputStream.toByteArray());
+        synchronized (diskLock) {
+            if (!diskDirectory.isDirectory() && !diskDirectory.mkdirs()) {
+                return;
+            }
+            ensureDiskSize();
+            File file = getFile(key);
+            File tempFile = new File(diskDirectory, file.getName() + TEMP_FILE_EXTENSION);
+            try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+                 FileChannel channel = fileOutputStream.getChannel()) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+                return;
+            }
+            long oldLength = file.length();
+            if (!tempFile.renameTo(file)) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+                return;
+            }
+            diskSize += buffer.capacity() - oldLength;
+            trimDisk();
+        }
+    }
+
+    private void ensureDiskSize() {
+        if (diskSize >= 0) {
+            return;
+        }
+        diskSize = 0;
+        File[] files = diskDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(FILE_EXTENSION)) {
+                    diskSize += file.length();
+                } else if (file.getName().endsWith(TEMP_FILE_EXTENSION)) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private void trimDisk() {
+        if (diskSize <= diskMaxSize) {
+            return;
+        }
+        File[] files = diskDirectory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null) {
+            return;
+        }
+        long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+        for (int i = 0; i < order.length && diskSize > diskMaxSize; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) {
+                diskSize -= length;
+            }
+        }
+    }
+
+    @NonNull
+    private File getFile(@NonNull String key) {
+        return new File(diskDirectory, hash(key) + FILE_EXTENSION);
+    }
+
+    @NonNull
+    private static String hash(@NonNull String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key.getBytes(StandardCharsets.UTF_8));
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                chars[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Px;
+
+import java.util.Arrays;
+
+/**
+ * Layout of the tiles of a collage. A layout splits the collage into weighted
+ * lines, either rows or columns, and splits each line into weighted cells.
+ * Tile rectangles are computed once per tile count and collage size, and kept
+ * as left, top, right and bottom quadruples in a primitive table.
+ */
+public final class CollageLayout {
+    private static final int TYPE_AUTO = 0;
+    private static final int TYPE_GRID = 1;
+    private static final int TYPE_ROWS = 2;
+    private static final int TYPE_COLUMNS = 3;
+
+    private static final int MAX_CACHED_TABLES = 32;
+    private static final float[] ONE = { 1f };
+    private static final float[] TWO = { 1f, 1f };
+
+    /**
+     * The default layout. Two tiles are laid out side by side, three as one on the
+     * left and two stacked on the right, four as a 2x2 grid and more as a balanced grid.
+     */
+    public static final CollageLayout DEFAULT = new CollageLayout(TYPE_AUTO, 0, null, null, 0, 0f);
+
+    private final int type;
+    private final int columnCount;
+    private final float[] lineWeights;
+    private final float[][] cellWeights;
+    private final int gutter;
+    private final float cornerRadius;
+
+    private final LongSparseArray<int[]> tables = new LongSparseArray<>();
+
+    private CollageLayout(int type, int columnCount, float[] lineWeights, float[][] cellWeights,
+                          int gutter, float cornerRadius) {
+        this.type = type;
+        this.columnCount = columnCount;
+        this.lineWeights = lineWeights;
+        this.cellWeights = cellWeights;
+        this.gutter = gutter;
+        this.cornerRadius = cornerRadius;
+    }
+
+    /**
+     * Create a grid layout. The last row is stretched when it is not full.
+     *
+     * @param columnCount Number of columns of the grid
+     * @return A grid layout
+     */
+    @NonNull
+    public static CollageLayout grid(int columnCount) {
+        if (columnCount <= 0) {
+            throw new IllegalArgumentException("columnCount <= 0");
+        }
+        return new CollageLayout(TYPE_GRID, columnCount, null, null, 0, 0f);
+    }
+
+    /**
+     * Create a layout of weighted rows, each split into weighted columns. Collages of
+     * fewer images than cells fall back to {@link #DEFAULT}, and images beyond the
+     * number of cells are not drawn.
+     *
+     * @param rowWeights Weights of the heights of the rows
+     * @param columnWeights Weights of the widths of the cells of each row
+     * @return A weighted layout
+     */
+    @NonNull
+    public static CollageLayout weightedRows(@NonNull float[] rowWeights, @NonNull float[]... columnWeights) {
+        checkWeights(rowWeights, columnWeights);
+        return new CollageLayout(TYPE_ROWS, 0, rowWeights.clone(), deepClone(columnWeights), 0, 0f);
+    }
+
+    /**
+     * Create a layout of weighted columns, each split into weighted rows. Collages of
+     * fewer images than cells fall back to {@link #DEFAULT}, and images beyond the
+     * number of cells are not drawn.
+     *
+     * @param columnWeights Weights of the widths of the columns
+     * @param rowWeights Weights of the heights of the cells of each column
+     * @return A weighted layout
+     */
+    @NonNull
+    public static CollageLayout weightedColumns(@NonNull float[] columnWeights, @NonNull float[]... rowWeights) {
+        checkWeights(columnWeights, rowWeights);
+        return new CollageLayout(TYPE_COLUMNS, 0, columnWeights.clone(), deepClone(rowWeights), 0, 0f);
+    }
+
+    /**
+     * Get a copy of this layout with a gap between adjacent tiles.
+     *
+     * @param gutter Gap between tiles in pixels
+     * @return A new layout
+     */
+    @NonNull
+    public CollageLayout withGutter(@Px int gutter) {
+        if (gutter < 0) {
+            throw new IllegalArgumentException("gutter < 0");
+        }
+        return new CollageLayout(type, columnCount, lineWeights, cellWeights, gutter, cornerRadius);
+    }
+
+    /**
+     * Get a copy of this layout with rounded tile corners.
+     *
+     * @param cornerRadius Radius of the tile corners in pixels
+     * @return A new layout
+     */
+    @NonNull
+    public CollageLayout withCornerRadius(@Px float cornerRadius) {
+        if (cornerRadius < 0f) {
+            throw new IllegalArgumentException("cornerRadius < 0");
+        }
+        return new CollageLayout(type, columnCount, lineWeights, cellWeights, gutter, cornerRadius);
+    }
+
+    public int getGutter() {
+        return gutter;
+    }
+
+    public float getCornerRadius() {
+        return cornerRadius;
+    }
+
+    /**
+     * Whether the tiles cover the whole collage, without gutters or rounded corners.
+     */
+    boolean isSeamless() {
+        return gutter == 0 && cornerRadius == 0f;
+    }
+
+    /**
+     * A stable description of this layout, to tell collages of different layouts apart.
+     *
+     * @return A key of this layout
+     */
+    @NonNull
+    public String getKey() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(type).append(',').append(columnCount)
+                .append(',').append(gutter).append(',').append(cornerRadius);
+        if (lineWeights != null) {
+            builder.append(',').append(Arrays.toString(lineWeights))
+                    .append(',').append(Arrays.deepToString(cellWeights));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Get the tile table of a collage. The table holds a left, top, right and bottom
+     * quadruple per drawn tile, and it is shared, so it must not be modified.
+     */
+    @NonNull
+    synchronized int[] getTiles(int count, int width, int height) {
+        long key = ((long) (count & 0xFFFF) << 48)
+                | ((long) (width & 0xFFFFFF) << 24) | (height & 0xFFFFFF);
+        int[] tiles = tables.get(key);
+        if (tiles == null) {
+            if (tables.size() >= MAX_CACHED_TABLES) {
+                tables.clear();
+            }
+            tiles = computeTiles(count, width, height);
+            tables.put(key, tiles);
+        }
+        return tiles;
+    }
+
+    @NonNull
+    private int[] computeTiles(int count, int width, int height) {
+        if (count <= 0) {
+            return new int[0];
+        }
+        switch (type) {
+            case TYPE_GRID:
+                return computeGridTiles(count, columnCount, width, height);
+            case TYPE_ROWS:
+            case TYPE_COLUMNS:
+                if (count >= getCellCount()) {
+                    return computeTiles(type == TYPE_COLUMNS, lineWeights, cellWeights, width, height);
+                }
+                // Fall through to the default layout
+            default:
+                return computeAutoTiles(count, width, height);
+        }
+    }
+
+    @NonNull
+    private int[] computeAutoTiles(int count, int width, int height) {
+        switch (count) {
+            case 1:
+                return computeTiles(false, ONE, new float[][] { ONE }, width, height);
+            case 2:
+                return computeTiles(true, TWO, new float[][] { ONE, ONE }, width, height);
+            case 3:
+                return computeTiles(true, TWO, new float[][] { ONE, TWO }, width, height);
+            default:
+                return computeGridTiles(count, (int) Math.ceil(Math.sqrt(count)), width, height);
+        }
+    }
+
+    @NonNull
+    private int[] computeGridTiles(int count, int columns, int width, int height) {
+        int rows = (count + columns - 1) / columns;
+        float[] rowWeights = new float[rows];
+        float[][] columnWeights = new float[rows][];
+        for (int row = 0; row < rows; row++) {
+            rowWeights[row] = 1f;
+            columnWeights[row] = new float[Math.min(columns, count - row * columns)];
+            Arrays.fill(columnWeights[row], 1f);
+        }
+        return computeTiles(false, rowWeights, columnWeights, width, height);
+    }
+
+    @NonNull
+    private int[] computeTiles(boolean columnMajor, @NonNull float[] lines, @NonNull float[][] cells,
+                               int width, int height) {
+        int cellCount = 0;
+        for (float[] line : cells) {
+            cellCount += line.length;
+        }
+        int[] tiles = new int[cellCount * 4];
+        int lineExtent = columnMajor ? width : height;
+        int cellExtent = columnMajor ? height : width;
+        int[] lineStarts = split(lines, lineExtent);
+        int index = 0;
+        for (int i = 0; i < lines.length; i++) {
+            int[] cellStarts = split(cells[i], cellExtent);
+            for (int j = 0; j < cells[i].length; j++, index += 4) {
+                int lineStart = lineStarts[i * 2];
+                int lineEnd = lineStarts[i * 2 + 1];
+                int cellStart = cellStarts[j * 2];
+                int cellEnd = cellStarts[j * 2 + 1];
+                if (columnMajor) {
+                    tiles[index] = lineStart;
+                    tiles[index + 1] = cellStart;
+                    tiles[index + 2] = lineEnd;
+                    tiles[index + 3] = cellEnd;
+                } else {
+                    tiles[index] = cellStart;
+                    tiles[index + 1] = lineStart;
+                    tiles[index + 2] = cellEnd;
+                    tiles[index + 3] = lineEnd;
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Split an extent by weights into start and end pairs, leaving a gutter between
+     * adjacent parts. Boundaries are rounded down, the same as an integer half.
+     */
+    @NonNull
+    private int[] split(@NonNull float[] weights, int extent) {
+        float total = 0f;
+        for (float weight : weights) {
+            total += weight;
+        }
+        int available = Math.max(extent - gutter * (weights.length - 1), 0);
+        int[] bounds = new int[weights.length * 2];
+        float cumulative = 0f;
+        int start = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i];
+            int end = i == weights.length - 1
+                    ? available : (int) Math.floor((double) available * cumulative / total + 1e-6);
+            bounds[i * 2] = start + gutter * i;
+            bounds[i * 2 + 1] = end + gutter * i;
+            start = end;
+        }
+        return bounds;
+    }
+
+    private int getCellCount() {
+        int cellCount = 0;
+        for (float[] line : cellWeights) {
+            cellCount += line.length;
+        }
+        return cellCount;
+    }
+
+    private static void checkWeights(@NonNull float[] lineWeights, @NonNull float[][] cellWeights) {
+        if (lineWeights.length == 0 || lineWeights.length != cellWeights.length) {
+            throw new IllegalArgumentException("Each line must have a weight and cell weights.");
+        }
+        for (float weight : lineWeights) {
+            if (!(weight > 0f)) {
+                throw new IllegalArgumentException("Weights must be positive.");
+            }
+        }
+        for (float[] line : cellWeights) {
+            if (line == null || line.length == 0) {
+                throw new IllegalArgumentException("Each line must have at least one cell.");
+            }
+            for (float weight : line) {
+                if (!(weight > 0f)) {
+                    throw new IllegalArgumentException("Weights must be positive.");
+                }
+            }
+        }
+    }
+
+    @NonNull
+    private static float[][] deepClone(@NonNull float[][] array) {
+        float[][] clone = new float[array.length][];
+        for (int i = 0; i < array.length; i++) {
+            clone[i] = array[i].clone();
+        }
+        return clone;
+    }
+}
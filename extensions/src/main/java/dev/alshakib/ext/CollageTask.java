@@ -0,0 +1,398 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A collage which is decoded tile by tile on a bounded background executor and
+ * composed by whichever worker decodes the last tile.
+ */
+final class CollageTask implements Future<Bitmap> {
+    private static final int THREAD_COUNT =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final int STATE_RUNNING = 0;
+    private static final int STATE_DONE = 1;
+    private static final int STATE_CANCELLED = 2;
+
+    private static final ThreadPoolExecutor EXECUTOR;
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Map<Object, CollageTask> TASKS = new WeakHashMap<>();
+
+    static {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "BitmapExt-collage-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        EXECUTOR = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final WeakReference<Object> target;
+    private final List<BitmapSource> sourceList;
+    private final int width;
+    private final int height;
+    private final CollageLayout layout;
+    private final BitmapConfigPolicy policy;
+    private final BitmapPool pool;
+    private final CollageCache cache;
+    private final String cacheKey;
+    private final BitmapExt.OnCollageReadyListener listener;
+
+    private final AtomicInteger state = new AtomicInteger(STATE_RUNNING);
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+    private final List<Future<?>> futures = new ArrayList<>();
+    private volatile boolean superseded;
+    private volatile Bitmap result;
+    // Guarded by this, whether get returned the result, which is then never recycled
+    private boolean retrieved;
+
+    private int[] tiles;
+    private Bitmap[] decodedTiles;
+    private AtomicInteger remainingTiles;
+
+    private CollageTask(@NonNull Object target, @NonNull List<BitmapSource> sourceList,
+                        int width, int height, @NonNull CollageLayout layout,
+                        @NonNull BitmapConfigPolicy policy, @Nullable BitmapPool pool, @Nullable CollageCache cache, @Nullable String cacheKey,
+                        @NonNull BitmapExt.OnCollageReadyListener listener) {
+        this.target = new WeakReference<>(target);
+        this.sourceList = sourceList;
+        this.width = width;
+        this.height = height;
+        this.layout = layout;
+        this.policy = policy;
+        this.pool = pool;
+        this.cache = cache;
+        this.cacheKey = cacheKey;
+        this.listener = listener;
+    }
+
+    @NonNull
+    static CollageTask submit(@NonNull Object target, @NonNull List<? extends BitmapSource> sourceList,
+                              int width, int height, @NonNull CollageLayout layout,
+                              @NonNull BitmapConfigPolicy policy, @Nullable BitmapPool pool, @Nullable CollageCache cache, @Nullable String cacheKey,
+                              @NonNull BitmapExt.OnCollageReadyListener listener) {
+        List<BitmapSource> sources = new ArrayList<>(sourceList.size());
+        for (BitmapSource source : sourceList) {
+            if (source != null) {
+                sources.add(source);
+            }
+        }
+        CollageTask task = new CollageTask(target, sources, width, height,
+                layout, policy, pool, cache, cacheKey, listener);
+        CollageTask previous;
+        synchronized (TASKS) {
+            previous = TASKS.put(target, task);
+        }
+        if (previous != null) {
+            previous.superseded = true;
+            previous.cancel(false);
+        }
+        task.start();
+        return task;
+    }
+
+    static void cancel(@NonNull Object target) {
+        CollageTask task;
+        synchronized (TASKS) {
+            task = TASKS.remove(target);
+        }
+        if (task != null) {
+            task.superseded = true;
+            task.cancel(false);
+        }
+    }
+
+    private void start() {
+        if (sourceList.isEmpty()) {
+            complete(null, false);
+            return;
+        }
+        if (cache != null && cacheKey != null) {
+            Bitmap cached = cache.getFromMemory(cacheKey);
+            if (cached != null) {
+                complete(cached, false);
+                return;
+            }
+            synchronized (futures) {
+                futures.add(EXECUTOR.submit(() -> {
+                    if (isDone()) {
+                        return;
+                    }
+                    Bitmap fromDisk = cache.get(cacheKey);
+                    if (fromDisk != null) {
+                        complete(fromDisk, false);
+                    } else {
+                        decode();
+                    }
+                }));
+            }
+            return;
+        }
+        decode();
+    }
+
+    private void decode() {
+        synchronized (futures) {
+            if (sourceList.size() == 1 && layout.getCornerRadius() == 0f) {
+                futures.add(EXECUTOR.submit(() -> {
+                    Bitmap bitmap = null;
+                    if (!isDone()) {
+                        try {
+                            bitmap = BitmapExt.scaleToCenterCrop(sourceList.get(0), width, height, pool);
+                            if (bitmap != null) {
+                                bitmap = policy.apply(bitmap, !bitmap.hasAlpha(), pool);
+                            }
+                        } catch (Exception ignored) { }
+                    }
+                    finish(bitmap);
+                }));
+                return;
+            }
+            tiles = layout.getTiles(sourceList.size(), width, height);
+            decodedTiles = new Bitmap[tiles.length / 4];
+            remainingTiles = new AtomicInteger(decodedTiles.length);
+            for (int i = 0; i < decodedTiles.length; i++) {
+                final int index = i;
+                futures.add(EXECUTOR.submit(() -> decodeTile(index)));
+            }
+        }
+    }
+
+    private void decodeTile(int index) {
+        if (isDone()) {
+            return;
+        }
+        int j = index * 4;
+        Bitmap tile = null;
+        try {
+            tile = sourceList.get(index).decode(tiles[j + 2] - tiles[j], tiles[j + 3] - tiles[j + 1]);
+        } catch (Exception ignored) { }
+        // Stored under the lock of the tiles, so that cancel either sees the tile or the
+        // tile sees the cancel
+        synchronized (decodedTiles) {
+            if (!isDone()) {
+                decodedTiles[index] = tile;
+                tile = null;
+            } else if (tile != null) {
+                tile.recycle();
+                return;
+            } else {
+                return;
+            }
+        }
+        if (remainingTiles.decrementAndGet() == 0) {
+            compose();
+        }
+    }
+
+    private void compose() {
+        Bitmap[] decoded;
+        synchronized (decodedTiles) {
+            decoded = decodedTiles.clone();
+            Arrays.fill(decodedTiles, null);
+        }
+        Bitmap collage = null;
+        try {
+            if (!isDone()) {
+                boolean opaque = layout.isSeamless();
+                for (Bitmap tile : decoded) {
+                    opaque &= tile != null && !tile.hasAlpha();
+                }
+                collage = BitmapExt.obtainBitmap(pool, width, height, policy.getConfig(opaque));
+                Canvas canvas = new Canvas(collage);
+                Matrix matrix = new Matrix();
+                Paint paint = BitmapExt.createTilePaint(layout);
+                for (int i = 0, j = 0; i < decoded.length; i++, j += 4) {
+                    if (decoded[i] != null) {
+                        BitmapExt.drawTile(canvas, decoded[i], tiles, j,
+                                layout.getCornerRadius(), matrix, paint);
+                    }
+                }
+                collage = policy.apply(collage, opaque, pool);
+            }
+        } catch (Exception ignored) {
+            if (collage != null) {
+                BitmapExt.recycleBitmap(pool, collage);
+                collage = null;
+            }
+        } finally {
+            for (Bitmap tile : decoded) {
+                if (tile != null) {
+                    tile.recycle();
+                }
+            }
+        }
+        finish(collage);
+    }
+
+    private void finish(@Nullable Bitmap collage) {
+        boolean cached = false;
+        if (collage != null && cache != null && cacheKey != null && !isDone()) {
+            cache.put(cacheKey, collage);
+            cached = true;
+        }
+        complete(collage, !cached);
+    }
+
+    private void complete(@Nullable Bitmap collage, boolean owned) {
+        if (!state.compareAndSet(STATE_RUNNING, STATE_DONE)) {
+            if (collage != null && owned) {
+                BitmapExt.recycleBitmap(pool, collage);
+            }
+            return;
+        }
+        result = collage;
+        // Always posted, even from the main thread on a memory cache hit, so the listener
+        // never runs before submit returns. The task stays pending for its target until
+        // then, so a request made before the result is delivered supersedes it.
+        MAIN_HANDLER.post(() -> {
+            Object key = target.get();
+            if (key != null) {
+                synchronized (TASKS) {
+                    if (TASKS.get(key) == this) {
+                        TASKS.remove(key);
+                    }
+                }
+            }
+            if (!superseded) {
+                listener.onCollageReady(collage);
+            } else if (collage != null && owned) {
+                // A result which get already returned belongs to its caller
+                synchronized (this) {
+                    if (retrieved) {
+                        return;
+                    }
+                    result = null;
+                }
+                BitmapExt.recycleBitmap(pool, collage);
+            }
+        });
+        // Released after the post, so the delivery is queued once get returns
+        doneLatch.countDown();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!state.compareAndSet(STATE_RUNNING, STATE_CANCELLED)) {
+            return false;
+        }
+        Bitmap[] tilesToRelease;
+        synchronized (futures) {
+            for (Future<?> future : futures) {
+                if (future.cancel(mayInterruptIfRunning) && future instanceof Runnable) {
+                    EXECUTOR.remove((Runnable) future);
+                }
+            }
+            tilesToRelease = decodedTiles;
+        }
+        // Tiles decoded before the cancel, as compose will not run to recycle them
+        if (tilesToRelease != null) {
+            synchronized (tilesToRelease) {
+                for (int i = 0; i < tilesToRelease.length; i++) {
+                    if (tilesToRelease[i] != null) {
+                        tilesToRelease[i].recycle();
+                        tilesToRelease[i] = null;
+                    }
+                }
+            }
+        }
+        doneLatch.countDown();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state.get() == STATE_CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state.get() != STATE_RUNNING;
+    }
+
+    @Override
+    public Bitmap get() throws InterruptedException {
+        doneLatch.await();
+        return getResult();
+    }
+
+    @Override
+    public Bitmap get(long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (!doneLatch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return getResult();
+    }
+
+    @Nullable
+    private synchronized Bitmap getResult() {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+        retrieved = true;
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+
+/**
+ * A locale aware sorter of strings which computes the collation key of each string
+ * once. Keys are cached across sorts, so sorting a list again only computes keys of
+ * new strings. Comparing collation keys gives the same order as {@link Collator#compare},
+ * and long lists are sorted in parallel.
+ */
+public final class CollationSorter {
+    private static final int DEFAULT_CACHE_SIZE = 50000;
+    private static final int PARALLEL_CHUNK_SIZE = 2048;
+    private static final int SEQUENTIAL_SORT_SIZE = 8192;
+
+    private final Collator collator;
+    private final LruCache<String, CollationKey> keys;
+
+    /**
+     * Create a sorter of a locale.
+     *
+     * @param locale Locale to collate strings
+     */
+    public CollationSorter(@NonNull Locale locale) {
+        this(Collator.getInstance(locale), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a sorter of a collator.
+     *
+     * @param collator Collator to compare strings, which must not be changed afterwards
+     * @param maxCacheSize Maximum number of cached collation keys
+     */
+    public CollationSorter(@NonNull Collator collator, int maxCacheSize) {
+        this.collator = (Collator) collator.clone();
+        this.keys = new LruCache<>(maxCacheSize);
+    }
+
+    @NonNull
+    public Collator getCollator() {
+        return (Collator) collator.clone();
+    }
+
+    /**
+     * Sort a list of strings in place. Equal strings keep their order.
+     *
+     * @param list List to sort, without null elements
+     */
+    public synchronized void sort(@NonNull List<String> list) {
+        int size = list.size();
+        if (size < 2) {
+            return;
+        }
+        String[] strings = list.toArray(new String[size]);
+        CollationKey[] collationKeys = new CollationKey[size];
+        ParallelWork.forEachChunk(size, PARALLEL_CHUNK_SIZE, (start, end) -> {
+            // A collator must not be shared between threads
+            Collator chunkCollator = (Collator) collator.clone();
+            for (int i = start; i < end; i++) {
+                CollationKey key = keys.get(strings[i]);
+                if (key == null) {
+                    key = chunkCollator.getCollationKey(strings[i]);
+                    keys.put(strings[i], key);
+                }
+                collationKeys[i] = key;
+            }
+        });
+        ParallelWork.sort(collationKeys, SEQUENTIAL_SORT_SIZE);
+        ListIterator<String> iterator = list.listIterator();
+        for (CollationKey key : collationKeys) {
+            iterator.next();
+            iterator.set(key.getSourceString());
+        }
+    }
+
+    /**
+     * Remove all cached collation keys.
+     */
+    public void clearCache() {
+        keys.evictAll();
+    }
+}
@@ -27,9 +27,7 @@
 package dev.alshakib.ext;
 
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Color;
-import android.util.TypedValue;
 
 import androidx.annotation.AttrRes;
 import androidx.annotation.ColorInt;
@@ -65,256 +63,93 @@ public final class ColorExt {
 
     @ColorInt
     public static int getColor(@NonNull Context context, @AttrRes int attr) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { attr });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
+        return ThemePalette.get(context).getColor(context.getTheme(), attr);
+    }
+
+    /**
+     * Resolve a set of color attributes of the theme of a context in one pass.
+     * Results are memoized per theme, so repeated calls with the same attributes
+     * only copy the cached colors.
+     *
+     * @param context Context to get the theme
+     * @param attrs Color attributes to resolve
+     * @param colors Array to fill with the colors, at the same indices as the attributes
+     */
+    public static void getColors(@NonNull Context context, @NonNull @AttrRes int[] attrs,
+                                 @NonNull @ColorInt int[] colors) {
+        if (colors.length < attrs.length) {
+            throw new IllegalArgumentException("colors.length < attrs.length");
         }
-        return color;
+        ThemePalette.get(context).getColors(context.getTheme(), attrs, colors);
     }
 
     @ColorInt
     public static int getPrimaryColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorPrimary });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getPrimaryColor();
     }
 
     @ColorInt
     public static int getPrimaryDarkColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorPrimaryDark });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getPrimaryDarkColor();
     }
 
     @ColorInt
     public static int getPrimaryVariantColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorPrimaryDark });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getPrimaryVariantColor();
     }
 
     @ColorInt
     public static int getOnPrimaryColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorOnPrimary });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getOnPrimaryColor();
     }
 
     @ColorInt
     public static int getSecondaryColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorSecondary });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getSecondaryColor();
     }
 
     @ColorInt
     public static int getSecondaryVariantColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorSecondaryVariant });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getSecondaryVariantColor();
     }
 
     @ColorInt
     public static int getOnSecondaryColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorOnSecondary });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getOnSecondaryColor();
     }
 
     @ColorInt
     public static int getAccentColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorAccent });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getAccentColor();
     }
 
     @ColorInt
     public static int getBackgroundColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { android.R.attr.colorBackground });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getBackgroundColor();
     }
 
     @ColorInt
     public static int getOnBackgroundColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorOnBackground });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getOnBackgroundColor();
     }
 
     @ColorInt
     public static int getSurfaceColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorSurface });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getSurfaceColor();
     }
 
     @ColorInt
     public static int getOnSurfaceColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorOnSurface });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getOnSurfaceColor();
     }
 
     @ColorInt
     public static int getErrorColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorError });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getErrorColor();
     }
 
     @ColorInt
     public static int getOnErrorColor(@NonNull Context context) {
-        TypedArray typedArray = null;
-        int color;
-        try {
-            TypedValue typedValue = new TypedValue();
-            typedArray = context
-                    .obtainStyledAttributes(typedValue.data, new int[] { R.attr.colorOnError });
-            color = typedArray.getColor(0, 0);
-        } finally {
-            if (typedArray != null) {
-                typedArray.recycle();
-            }
-        }
-        return color;
+        return ThemePalette.get(context).getOnErrorColor();
     }
 }
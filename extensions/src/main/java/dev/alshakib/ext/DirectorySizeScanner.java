@@ -0,0 +1,314 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.system.StructStat;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums the sizes of the regular files in a directory tree, walking subdirectories in
+ * parallel. Symbolic links are not followed.
+ * <p>
+ * A scanner can remember the listing of each directory with its modification time and
+ * the sizes of its files, so a rescan lists and stats the files of changed directories
+ * only, and stats each unchanged directory once. A directory's modification time only
+ * changes when entries are added, removed or renamed in it, so a remembered size does
+ * not follow a file which is rewritten in place until {@link #clearCache()} is called.
+ * Scanners which remember nothing see every change.
+ */
+public final class DirectorySizeScanner {
+    private static final int DEFAULT_MAX_CACHED_DIRECTORIES = 10000;
+    // Directories modified this recently are not remembered, as a change within the same
+    // second of their modification time would go unnoticed
+    private static final long MIN_LISTING_AGE_SECONDS = 2;
+
+    private final LruCache<String, Listing> listings;
+
+    public interface OnProgressListener {
+        /**
+         * Called as directories are scanned, from the scanning threads, with the totals
+         * so far. Calls are serialized, so the totals never decrease.
+         *
+         * @param bytes Size of the files scanned so far
+         * @param files Number of files scanned so far
+         * @param directories Number of directories scanned so far
+         */
+        void onProgress(long bytes, long files, long directories);
+    }
+
+    /**
+     * Create a scanner which remembers the listings of up to 10000 directories.
+     */
+    public DirectorySizeScanner() {
+        this(DEFAULT_MAX_CACHED_DIRECTORIES);
+    }
+
+    /**
+     * Create a scanner.
+     *
+     * @param maxCachedDirectories Maximum number of remembered directory listings, or 0
+     *                             to list every directory on every scan
+     */
+    public DirectorySizeScanner(int maxCachedDirectories) {
+        if (maxCachedDirectories < 0) {
+            throw new IllegalArgumentException("maxCachedDirectories must not be negative");
+        }
+        this.listings = maxCachedDirectories > 0 ? new LruCache<>(maxCachedDirectories) : null;
+    }
+
+    /**
+     * Get the total size of the regular files in a directory tree. Sizes of files in
+     * remembered directories are not read again, see {@link DirectorySizeScanner}.
+     *
+     * @param directory Directory to scan, or a file to get the size of
+     * @return Size of the files in bytes
+     */
+    @WorkerThread
+    public long scan(@NonNull File directory) {
+        return scan(directory, null, null);
+    }
+
+    /**
+     * Get the total size of the regular files in a directory tree. Entries which cannot
+     * be read are skipped.
+     *
+     * @param directory Directory to scan, or a file to get the size of
+     * @param signal Signal to cancel the scan with
+     * @param listener Listener to report the totals to as the scan goes on
+     * @return Size of the files in bytes
+     * @throws OperationCanceledException If the scan is canceled
+     */
+    @WorkerThread
+    public long scan(@NonNull File directory, @Nullable CancellationSignal signal,
+                     @Nullable OnProgressListener listener) {
+        StructStat stat = lstat(directory.getPath());
+        if (stat == null) {
+            return 0;
+        }
+        if (!OsConstants.S_ISDIR(stat.st_mode)) {
+            return OsConstants.S_ISREG(stat.st_mode) ? stat.st_size : 0;
+        }
+        Progress progress = new Progress(listener);
+        long nowSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        return PoolHolder.POOL.invoke(new DirectoryTask(directory.getPath(), nowSeconds, signal, progress));
+    }
+
+    /**
+     * Forget the remembered directory listings, so that the next scan lists every directory.
+     */
+    public void clearCache() {
+        if (listings != null) {
+            listings.evictAll();
+        }
+    }
+
+    /**
+     * Forget the listing of a directory and the listings of its subdirectories.
+     */
+    private void forget(@NonNull String path) {
+        Listing listing = listings.remove(path);
+        if (listing != null) {
+            for (String directory : listing.directories) {
+                forget(directory);
+            }
+        }
+    }
+
+    @Nullable
+    private static StructStat lstat(@NonNull String path) {
+        try {
+            return Os.lstat(path);
+        } catch (ErrnoException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Listing list(@NonNull String path, long modified) {
+        String[] names = new File(path).list();
+        if (names == null) {
+            return null;
+        }
+        long size = 0;
+        int files = 0;
+        List<String> directories = new ArrayList<>();
+        for (String name : names) {
+            String child = path + File.separatorChar + name;
+            StructStat stat = lstat(child);
+            if (stat == null) {
+                continue;
+            }
+            if (OsConstants.S_ISREG(stat.st_mode)) {
+                size += stat.st_size;
+                files++;
+            } else if (OsConstants.S_ISDIR(stat.st_mode)) {
+                directories.add(child);
+            }
+        }
+        return new Listing(modified, size, files, directories.toArray(new String[0]));
+    }
+
+    private static final class PoolHolder {
+        // File system calls block, so use more threads than processors, apart from the
+        // pool of CPU bound work
+        static final ForkJoinPool POOL = new ForkJoinPool(
+                Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static final class Listing {
+        final long modified;
+        final long size;
+        final int files;
+        final String[] directories;
+
+        Listing(long modified, long size, int files, @NonNull String[] directories) {
+            this.modified = modified;
+            this.size = size;
+            this.files = files;
+            this.directories = directories;
+        }
+    }
+
+    private static final class Progress {
+        private final OnProgressListener listener;
+        private long bytes;
+        private long files;
+        private long directories;
+
+        Progress(@Nullable OnProgressListener listener) {
+            this.listener = listener;
+        }
+
+        void add(@NonNull Listing listing) {
+            if (listener == null) {
+                return;
+            }
+            synchronized (this) {
+                bytes += listing.size;
+                files += listing.files;
+                directories++;
+                listener.onProgress(bytes, files, directories);
+            }
+        }
+    }
+
+    private final class DirectoryTask extends RecursiveTask<Long> {
+        private final String path;
+        private final long nowSeconds;
+        private final CancellationSignal signal;
+        private final Progress progress;
+
+        DirectoryTask(@NonNull String path, long nowSeconds,
+                      @Nullable CancellationSignal signal, @NonNull Progress progress) {
+            this.path = path;
+            this.nowSeconds = nowSeconds;
+            this.signal = signal;
+            this.progress = progress;
+        }
+
+        @Override
+        protected Long compute() {
+            if (signal != null) {
+                signal.throwIfCanceled();
+            }
+            StructStat stat = lstat(path);
+            Listing listing;
+            if (listings == null) {
+                listing = stat != null && OsConstants.S_ISDIR(stat.st_mode) ? list(path, stat.st_mtime) : null;
+            } else {
+                listing = getListing(stat);
+            }
+            if (listing == null) {
+                return 0L;
+            }
+            progress.add(listing);
+            List<DirectoryTask> tasks = new ArrayList<>(listing.directories.length);
+            for (String directory : listing.directories) {
+                tasks.add(new DirectoryTask(directory, nowSeconds, signal, progress));
+            }
+            long size = listing.size;
+            if (!tasks.isEmpty()) {
+                for (DirectoryTask task : invokeAll(tasks)) {
+                    size += task.join();
+                }
+            }
+            return size;
+        }
+
+        @Nullable
+        private Listing getListing(@Nullable StructStat stat) {
+            if (stat == null || !OsConstants.S_ISDIR(stat.st_mode)) {
+                forget(path);
+                return null;
+            }
+            long modified = stat.st_mtime;
+            Listing cached = listings.get(path);
+            if (cached != null && cached.modified == modified) {
+                return cached;
+            }
+            Listing listing = list(path, modified);
+            if (listing == null) {
+                forget(path);
+                return null;
+            }
+            if (nowSeconds - modified >= MIN_LISTING_AGE_SECONDS) {
+                listings.put(path, listing);
+            } else {
+                listings.remove(path);
+            }
+            if (cached != null) {
+                // Forget the subtrees of subdirectories which are gone
+                Set<String> directories = new HashSet<>(Arrays.asList(listing.directories));
+                for (String directory : cached.directories) {
+                    if (!directories.contains(directory)) {
+                        forget(directory);
+                    }
+                }
+            }
+            return listing;
+        }
+    }
+}
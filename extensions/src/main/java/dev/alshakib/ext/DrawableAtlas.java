@@ -0,0 +1,358 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.Px;
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of drawables rasterized into a few large page bitmaps. Drawables are packed
+ * onto shelves, tallest first, with a gap between them so filtered drawing does not
+ * bleed into neighbours. Each drawable is drawn through a {@link Region} of a page.
+ */
+public final class DrawableAtlas {
+    private final Bitmap[] pages;
+    private final Region[] regions;
+
+    private DrawableAtlas(@NonNull Bitmap[] pages, @NonNull Region[] regions) {
+        this.pages = pages;
+        this.regions = regions;
+    }
+
+    public int getPageCount() {
+        return pages.length;
+    }
+
+    @NonNull
+    public Bitmap getPage(int index) {
+        return pages[index];
+    }
+
+    public int getRegionCount() {
+        return regions.length;
+    }
+
+    /**
+     * Get the region of a drawable.
+     *
+     * @param index Index returned when the drawable was added to the builder
+     * @return The region of the drawable or null if the drawable could not be loaded
+     */
+    @Nullable
+    public Region getRegion(int index) {
+        return regions[index];
+    }
+
+    /**
+     * Recycle the pages of this atlas. Regions must not be drawn afterwards.
+     */
+    public void recycle() {
+        for (Bitmap page : pages) {
+            page.recycle();
+        }
+    }
+
+    /**
+     * A rectangle of a page which holds one drawable.
+     */
+    public static final class Region {
+        private final Bitmap page;
+        private final int pageIndex;
+        private final Rect bounds;
+
+        private Region(@NonNull Bitmap page, int pageIndex, @NonNull Rect bounds) {
+            this.page = page;
+            this.pageIndex = pageIndex;
+            this.bounds = bounds;
+        }
+
+        @NonNull
+        public Bitmap getPage() {
+            return page;
+        }
+
+        public int getPageIndex() {
+            return pageIndex;
+        }
+
+        public int getLeft() {
+            return bounds.left;
+        }
+
+        public int getTop() {
+            return bounds.top;
+        }
+
+        public int getWidth() {
+            return bounds.right - bounds.left;
+        }
+
+        public int getHeight() {
+            return bounds.bottom - bounds.top;
+        }
+
+        /**
+         * Draw the drawable at its rasterized size.
+         *
+         * @param canvas Canvas to draw into
+         * @param x Left of the drawable on the canvas
+         * @param y Top of the drawable on the canvas
+         * @param paint Paint to draw with, or null
+         */
+        public void draw(@NonNull Canvas canvas, float x, float y, @Nullable Paint paint) {
+            int saveCount = canvas.save();
+            canvas.clipRect(x, y, x + getWidth(), y + getHeight());
+            canvas.drawBitmap(page, x - bounds.left, y - bounds.top, paint);
+            canvas.restoreToCount(saveCount);
+        }
+
+        /**
+         * Draw the drawable scaled into a rectangle.
+         *
+         * @param canvas Canvas to draw into
+         * @param destination Rectangle of the drawable on the canvas
+         * @param paint Paint to draw with, or null
+         */
+        public void draw(@NonNull Canvas canvas, @NonNull Rect destination, @Nullable Paint paint) {
+            canvas.drawBitmap(page, bounds, destination, paint);
+        }
+    }
+
+    public static final class Builder {
+        private static final int DEFAULT_PAGE_SIZE = 1024;
+
+        private final Context context;
+        private final List<Object> drawables = new ArrayList<>();
+        private final List<int[]> sizes = new ArrayList<>();
+        private int pageWidth = DEFAULT_PAGE_SIZE;
+        private int pageHeight = DEFAULT_PAGE_SIZE;
+        private int padding = 1;
+        private BitmapConfigPolicy policy = BitmapConfigPolicy.getDefault();
+
+        public Builder(@NonNull Context context) {
+            this.context = context;
+        }
+
+        /**
+         * Set the maximum size of a page. Drawables larger than a page get a page of their own.
+         *
+         * @param width Maximum width of a page
+         * @param height Maximum height of a page
+         * @return This builder
+         */
+        @NonNull
+        public Builder setPageSize(@Px int width, @Px int height) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Page size must be positive.");
+            }
+            this.pageWidth = width;
+            this.pageHeight = height;
+            return this;
+        }
+
+        /**
+         * Set the gap around each drawable. The default is one pixel.
+         *
+         * @param padding Gap around each drawable in pixels
+         * @return This builder
+         */
+        @NonNull
+        public Builder setPadding(@Px int padding) {
+            if (padding < 0) {
+                throw new IllegalArgumentException("padding < 0");
+            }
+            this.padding = padding;
+            return this;
+        }
+
+        @NonNull
+        public Builder setConfigPolicy(@NonNull BitmapConfigPolicy policy) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * Add a drawable resource to the atlas.
+         *
+         * @param drawableId Drawable resource id to get the drawable
+         * @param width Width to rasterize the drawable at
+         * @param height Height to rasterize the drawable at
+         * @return Index of the region of the drawable
+         */
+        public int add(@DrawableRes int drawableId, @Px int width, @Px int height) {
+            return add((Object) drawableId, width, height);
+        }
+
+        /**
+         * Add a drawable to the atlas. The bounds of the drawable are changed when it is drawn.
+         *
+         * @param drawable Drawable to add
+         * @param width Width to rasterize the drawable at
+         * @param height Height to rasterize the drawable at
+         * @return Index of the region of the drawable
+         */
+        public int add(@NonNull Drawable drawable, @Px int width, @Px int height) {
+            return add((Object) drawable, width, height);
+        }
+
+        private int add(@NonNull Object drawable, int width, int height) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Drawable size must be positive.");
+            }
+            drawables.add(drawable);
+            sizes.add(new int[] { width, height });
+            return drawables.size() - 1;
+        }
+
+        /**
+         * Pack and rasterize the added drawables.
+         *
+         * @return An atlas of the drawables
+         */
+        @NonNull
+        public DrawableAtlas build() {
+            int count = drawables.size();
+            Drawable[] loaded = new Drawable[count];
+            List<Integer> order = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Object drawable = drawables.get(i);
+                loaded[i] = drawable instanceof Drawable
+                        ? (Drawable) drawable : ContextCompat.getDrawable(context, (Integer) drawable);
+                if (loaded[i] != null) {
+                    order.add(i);
+                }
+            }
+            // Tallest first keeps the shelves tight
+            Collections.sort(order, (a, b) -> {
+                int[] sizeA = sizes.get(a);
+                int[] sizeB = sizes.get(b);
+                int compare = Integer.compare(sizeB[1], sizeA[1]);
+                return compare != 0 ? compare : Integer.compare(sizeB[0], sizeA[0]);
+            });
+
+            // Per drawable: page, left and top. Per page: used width and height.
+            int[] placements = new int[count * 3];
+            List<int[]> pageSizes = new ArrayList<>();
+            // Per shelf: page, top, height and next left
+            List<int[]> shelves = new ArrayList<>();
+            int[] lastShelf = null;
+            for (int index : order) {
+                int width = sizes.get(index)[0];
+                int height = sizes.get(index)[1];
+                if (width + padding * 2 > pageWidth || height + padding * 2 > pageHeight) {
+                    place(placements, index, pageSizes.size(), padding, padding);
+                    pageSizes.add(new int[] { width + padding * 2, height + padding * 2 });
+                    continue;
+                }
+                int[] shelf = null;
+                for (int[] candidate : shelves) {
+                    if (height <= candidate[2] && candidate[3] + width + padding <= pageWidth) {
+                        shelf = candidate;
+                        break;
+                    }
+                }
+                if (shelf == null) {
+                    int page;
+                    int top = lastShelf != null ? lastShelf[1] + lastShelf[2] + padding : pageHeight;
+                    if (top + height + padding <= pageHeight) {
+                        page = lastShelf[0];
+                    } else {
+                        page = pageSizes.size();
+                        top = padding;
+                        pageSizes.add(new int[] { 0, 0 });
+                    }
+                    shelf = new int[] { page, top, height, padding };
+                    shelves.add(shelf);
+                    lastShelf = shelf;
+                }
+                place(placements, index, shelf[0], shelf[3], shelf[1]);
+                shelf[3] += width + padding;
+                int[] pageSize = pageSizes.get(shelf[0]);
+                pageSize[0] = Math.max(pageSize[0], shelf[3]);
+                pageSize[1] = Math.max(pageSize[1], shelf[1] + shelf[2] + padding);
+            }
+            return render(loaded, placements, pageSizes);
+        }
+
+        private static void place(@NonNull int[] placements, int index, int page, int left, int top) {
+            placements[index * 3] = page;
+            placements[index * 3 + 1] = left;
+            placements[index * 3 + 2] = top;
+        }
+
+        @NonNull
+        private DrawableAtlas render(@NonNull Drawable[] loaded, @NonNull int[] placements,
+                                     @NonNull List<int[]> pageSizes) {
+            Bitmap[] pages = new Bitmap[pageSizes.size()];
+            Canvas[] canvases = new Canvas[pages.length];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = Bitmap.createBitmap(pageSizes.get(i)[0], pageSizes.get(i)[1],
+                        policy.getConfig(false));
+                canvases[i] = new Canvas(pages[i]);
+            }
+            Rect[] bounds = new Rect[loaded.length];
+            for (int i = 0; i < loaded.length; i++) {
+                if (loaded[i] == null) {
+                    continue;
+                }
+                int left = placements[i * 3 + 1];
+                int top = placements[i * 3 + 2];
+                bounds[i] = new Rect(left, top, left + sizes.get(i)[0], top + sizes.get(i)[1]);
+                Canvas canvas = canvases[placements[i * 3]];
+                int saveCount = canvas.save();
+                canvas.clipRect(bounds[i]);
+                loaded[i].setBounds(bounds[i].left, bounds[i].top, bounds[i].right, bounds[i].bottom);
+                loaded[i].draw(canvas);
+                canvas.restoreToCount(saveCount);
+            }
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = policy.apply(pages[i], false, null);
+            }
+            Region[] regions = new Region[loaded.length];
+            for (int i = 0; i < loaded.length; i++) {
+                if (bounds[i] != null) {
+                    regions[i] = new Region(pages[placements[i * 3]], placements[i * 3], bounds[i]);
+                }
+            }
+            return new DrawableAtlas(pages, regions);
+        }
+    }
+}
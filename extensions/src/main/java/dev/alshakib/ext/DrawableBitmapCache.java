@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A byte bounded LRU cache of drawables rasterized by {@link DrawableExt}. Bitmaps
+ * are keyed by the drawable resource, size, screen density, night mode, theme, tint
+ * and bitmap config policy. Bitmaps returned by the cache are shared, so they must
+ * not be recycled while they are cached.
+ */
+public final class DrawableBitmapCache {
+    private static final Map<Resources.Theme, Integer> THEME_IDS = new WeakHashMap<>();
+    private static int nextThemeId;
+
+    private final LruCache<Key, Bitmap> cache;
+    private final OnBitmapRemovedListener listener;
+
+    /**
+     * Listener of the bitmaps removed from the cache, such as to recycle them once
+     * they are no longer in use.
+     */
+    public interface OnBitmapRemovedListener {
+        void onBitmapRemoved(@NonNull Bitmap bitmap, boolean evicted);
+    }
+
+    /**
+     * Create a drawable bitmap cache.
+     *
+     * @param maxSize Maximum size of the cache in bytes
+     */
+    public DrawableBitmapCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Create a drawable bitmap cache.
+     *
+     * @param maxSize Maximum size of the cache in bytes
+     * @param listener Listener of the bitmaps removed from the cache
+     */
+    public DrawableBitmapCache(int maxSize, @Nullable OnBitmapRemovedListener listener) {
+        this.listener = listener;
+        this.cache = new LruCache<Key, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Bitmap oldValue, Bitmap newValue) {
+                if (DrawableBitmapCache.this.listener != null && oldValue != newValue) {
+                    DrawableBitmapCache.this.listener.onBitmapRemoved(oldValue, evicted);
+                }
+            }
+        };
+    }
+
+    /**
+     * Create a cache key of a rasterized drawable.
+     */
+    @NonNull
+    static Key createKey(@NonNull Context context, @DrawableRes int drawableId, int width, int height,
+                         boolean tinted, @ColorInt int tint, @NonNull BitmapConfigPolicy policy) {
+        Configuration configuration = context.getResources().getConfiguration();
+        return new Key(drawableId, width, height,
+                context.getResources().getDisplayMetrics().densityDpi,
+                configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK,
+                getThemeId(context.getTheme()), tinted, tint, policy);
+    }
+
+    @Nullable
+    Bitmap get(@NonNull Key key) {
+        return cache.get(key);
+    }
+
+    void put(@NonNull Key key, @NonNull Bitmap bitmap) {
+        cache.put(key, bitmap);
+    }
+
+    /**
+     * Remove all bitmaps from the cache.
+     */
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    /**
+     * Remove the least recently used bitmaps until the cache fits a size.
+     *
+     * @param maxSize Size to trim the cache to in bytes
+     */
+    public void trimToSize(int maxSize) {
+        cache.trimToSize(maxSize);
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return cache.maxSize();
+    }
+
+    public int getHitCount() {
+        return cache.hitCount();
+    }
+
+    public int getMissCount() {
+        return cache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return cache.evictionCount();
+    }
+
+    /**
+     * Get a sequence id of a theme. A theme modified in place hashes differently
+     * and gets a new id, so bitmaps of its earlier state are not reused.
+     */
+    private static int getThemeId(@Nullable Resources.Theme theme) {
+        if (theme == null) {
+            return 0;
+        }
+        synchronized (THEME_IDS) {
+            Integer id = THEME_IDS.get(theme);
+            if (id == null) {
+                id = ++nextThemeId;
+                THEME_IDS.put(theme, id);
+            }
+            return id;
+        }
+    }
+
+    static final class Key {
+        private final int drawableId;
+        private final int width;
+        private final int height;
+        private final int densityDpi;
+        private final int nightMode;
+        private final int themeId;
+        private final boolean tinted;
+        private final int tint;
+        private final BitmapConfigPolicy policy;
+
+        private Key(int drawableId, int width, int height, int densityDpi, int nightMode,
+                    int themeId, boolean tinted, int tint, @NonNull BitmapConfigPolicy policy) {
+            this.drawableId = drawableId;
+            this.width = width;
+            this.height = height;
+            this.densityDpi = densityDpi;
+            this.nightMode = nightMode;
+            this.themeId = themeId;
+            this.tinted = tinted;
+            this.tint = tint;
+            this.policy = policy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return drawableId == key.drawableId && width == key.width && height == key.height
+                    && densityDpi == key.densityDpi && nightMode == key.nightMode
+                    && themeId == key.themeId && tinted == key.tinted
+                    && (!tinted || tint == key.tint) && policy == key.policy;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = drawableId;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + densityDpi;
+            result = 31 * result + nightMode;
+            result = 31 * result + themeId;
+            result = 31 * result + (tinted ? tint : 0);
+            result = 31 * result + policy.ordinal();
+            return result;
+        }
+    }
+}
@@ -29,8 +29,14 @@ package dev.alshakib.ext;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.view.Gravity;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -44,12 +50,18 @@ public final class DrawableExt {
      * @return A bitmap from the drawable
      */
     public static Bitmap getBitmap(@NonNull Drawable drawable) {
-        Bitmap bitmap = Bitmap.createBitmap(drawable.getIntrinsicWidth(),
-                drawable.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bitmap);
-        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-        drawable.draw(canvas);
-        return bitmap;
+        return getBitmap(drawable, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Get a bitmap from a drawable.
+     *
+     * @param drawable Drawable to convert to a bitmap
+     * @param policy Policy to choose the config of the bitmap
+     * @return A bitmap from the drawable
+     */
+    public static Bitmap getBitmap(@NonNull Drawable drawable, @NonNull BitmapConfigPolicy policy) {
+        return getBitmap(drawable, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight(), policy);
     }
 
     /**
@@ -61,11 +73,80 @@ public final class DrawableExt {
      * @return A bitmap from the drawable
      */
     public static Bitmap getBitmap(@NonNull Drawable drawable, int width, int height) {
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        return getBitmap(drawable, width, height, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Get a bitmap from a drawable. The bitmap is always a new one owned by the caller.
+     * The bitmap of a {@link BitmapDrawable} which already has the size and config asked
+     * for is copied instead of drawn.
+     *
+     * @param drawable Drawable to convert to a bitmap
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param policy Policy to choose the config of the bitmap
+     * @return A bitmap from the drawable
+     */
+    public static Bitmap getBitmap(@NonNull Drawable drawable, int width, int height,
+                                   @NonNull BitmapConfigPolicy policy) {
+        Bitmap drawableBitmap = getDrawableBitmap(drawable, width, height, policy);
+        if (drawableBitmap != null) {
+            Bitmap.Config config = drawableBitmap.getConfig();
+            Bitmap copy = drawableBitmap.copy(config,
+                    config == policy.getConfig(!drawableBitmap.hasAlpha()));
+            if (copy != null) {
+                return copy;
+            }
+        }
+        return rasterize(drawable, width, height, policy);
+    }
+
+    /**
+     * Get a bitmap from a drawable, without a copy when possible.
+     *
+     * @param drawable Drawable to convert to a bitmap
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @return A bitmap from the drawable, which may be shared with the drawable
+     */
+    @NonNull
+    public static Bitmap getSharedBitmap(@NonNull Drawable drawable, int width, int height) {
+        return getSharedBitmap(drawable, width, height, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Get a bitmap from a drawable, without a copy when possible. The bitmap of a
+     * {@link BitmapDrawable} is returned as it is when it already has the size and config
+     * asked for and the drawable has no color filter or alpha. Such a bitmap is shared
+     * with the drawable and may be immutable, so it must not be modified or recycled.
+     * Use {@link #getBitmap(Drawable, int, int, BitmapConfigPolicy)} for a bitmap owned
+     * by the caller.
+     *
+     * @param drawable Drawable to convert to a bitmap
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param policy Policy to choose the config of the bitmap
+     * @return A bitmap from the drawable, which may be shared with the drawable
+     */
+    @NonNull
+    public static Bitmap getSharedBitmap(@NonNull Drawable drawable, int width, int height,
+                                         @NonNull BitmapConfigPolicy policy) {
+        Bitmap drawableBitmap = getDrawableBitmap(drawable, width, height, policy);
+        if (drawableBitmap != null) {
+            return drawableBitmap;
+        }
+        return rasterize(drawable, width, height, policy);
+    }
+
+    @NonNull
+    private static Bitmap rasterize(@NonNull Drawable drawable, int width, int height,
+                                    @NonNull BitmapConfigPolicy policy) {
+        boolean opaque = drawable.getOpacity() == PixelFormat.OPAQUE;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, policy.getConfig(opaque));
         Canvas canvas = new Canvas(bitmap);
         drawable.setBounds(0, 0, width, height);
         drawable.draw(canvas);
-        return bitmap;
+        return policy.apply(bitmap, opaque, null);
     }
 
     /**
@@ -77,9 +158,23 @@ public final class DrawableExt {
      */
     @Nullable
     public static Bitmap getBitmap(@NonNull Context context, @DrawableRes int drawableId) {
+        return getBitmap(context, drawableId, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Create a bitmap from a drawable.
+     *
+     * @param context Context to get resources
+     * @param drawableId Drawable resource id to get the drawable
+     * @param policy Policy to choose the config of the bitmap
+     * @return A bitmap from the drawable
+     */
+    @Nullable
+    public static Bitmap getBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                   @NonNull BitmapConfigPolicy policy) {
         Drawable drawable = ContextCompat.getDrawable(context, drawableId);
         if (drawable != null) {
-            return getBitmap(drawable);
+            return getBitmap(drawable, policy);
         }
         return null;
     }
@@ -96,10 +191,193 @@ public final class DrawableExt {
     @Nullable
     public static Bitmap getBitmap(@NonNull Context context, @DrawableRes int drawableId,
                                    int width, int height) {
+        return getBitmap(context, drawableId, width, height, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Create a bitmap from a drawable.
+     *
+     * @param context Context to get resources
+     * @param drawableId Drawable resource id to get the drawable
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param policy Policy to choose the config of the bitmap
+     * @return A bitmap from the drawable
+     */
+    @Nullable
+    public static Bitmap getBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                   int width, int height, @NonNull BitmapConfigPolicy policy) {
+        Drawable drawable = ContextCompat.getDrawable(context, drawableId);
+        if (drawable != null) {
+            return getBitmap(drawable, width, height, policy);
+        }
+        return null;
+    }
+
+    /**
+     * Get a bitmap from a drawable, without a copy when possible.
+     *
+     * @param context Context to get resources
+     * @param drawableId Drawable resource id to get the drawable
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @return A bitmap from the drawable, which may be shared with the drawable
+     */
+    @Nullable
+    public static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                         int width, int height) {
+        return getSharedBitmap(context, drawableId, width, height, BitmapConfigPolicy.getDefault());
+    }
+
+    /**
+     * Get a bitmap from a drawable, without a copy when possible. See
+     * {@link #getSharedBitmap(Drawable, int, int, BitmapConfigPolicy)}, the bitmap must
+     * not be modified or recycled.
+     *
+     * @param context Context to get resources
+     * @param drawableId Drawable resource id to get the drawable
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param policy Policy to choose the config of the bitmap
+     * @return A bitmap from the drawable, which may be shared with the drawable
+     */
+    @Nullable
+    public static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                         int width, int height, @NonNull BitmapConfigPolicy policy) {
         Drawable drawable = ContextCompat.getDrawable(context, drawableId);
         if (drawable != null) {
-            return getBitmap(drawable, width, height);
+            return getSharedBitmap(drawable, width, height, policy);
         }
         return null;
     }
+
+    @Nullable
+    public static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                         int width, int height, @NonNull DrawableBitmapCache cache) {
+        return getSharedBitmap(context, drawableId, width, height, false, 0,
+                BitmapConfigPolicy.getDefault(), cache);
+    }
+
+    @Nullable
+    public static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                         int width, int height, @NonNull BitmapConfigPolicy policy,
+                                         @NonNull DrawableBitmapCache cache) {
+        return getSharedBitmap(context, drawableId, width, height, false, 0, policy, cache);
+    }
+
+    @Nullable
+    public static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                         int width, int height, @ColorInt int tint,
+                                         @NonNull DrawableBitmapCache cache) {
+        return getSharedBitmap(context, drawableId, width, height, true, tint,
+                BitmapConfigPolicy.getDefault(), cache);
+    }
+
+    /**
+     * Get a tinted bitmap from a drawable, rasterized once and then served from a cache.
+     * The bitmap is shared, with the cache or with the drawable, so it must not be
+     * modified or recycled.
+     *
+     * @param context Context to get resources and the theme
+     * @param drawableId Drawable resource id to get the drawable
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param tint Color to tint the drawable with
+     * @param policy Policy to choose the config of the bitmap
+     * @param cache Cache of the rasterized drawables
+     * @return A bitmap from the drawable
+     */
+    @Nullable
+    public static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                         int width, int height, @ColorInt int tint,
+                                         @NonNull BitmapConfigPolicy policy, @NonNull DrawableBitmapCache cache) {
+        return getSharedBitmap(context, drawableId, width, height, true, tint, policy, cache);
+    }
+
+    @Nullable
+    private static Bitmap getSharedBitmap(@NonNull Context context, @DrawableRes int drawableId,
+                                          int width, int height, boolean tinted, @ColorInt int tint,
+                                          @NonNull BitmapConfigPolicy policy, @NonNull DrawableBitmapCache cache) {
+        DrawableBitmapCache.Key key = DrawableBitmapCache.createKey(context, drawableId,
+                width, height, tinted, tint, policy);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null && !bitmap.isRecycled()) {
+            return bitmap;
+        }
+        Drawable drawable = ContextCompat.getDrawable(context, drawableId);
+        if (drawable == null) {
+            return null;
+        }
+        if (tinted) {
+            drawable = drawable.mutate();
+            drawable.setTint(tint);
+        } else {
+            Bitmap drawableBitmap = getDrawableBitmap(drawable, width, height, policy);
+            if (drawableBitmap != null) {
+                return drawableBitmap;
+            }
+        }
+        bitmap = rasterize(drawable, width, height, policy);
+        cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Get the bitmap of a bitmap drawable if it can be used as it is.
+     */
+    @Nullable
+    private static Bitmap getDrawableBitmap(@NonNull Drawable drawable, int width, int height,
+                                            @NonNull BitmapConfigPolicy policy) {
+        if (!(drawable instanceof BitmapDrawable)) {
+            return null;
+        }
+        BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
+        Bitmap bitmap = bitmapDrawable.getBitmap();
+        if (bitmap == null || bitmap.isRecycled()
+                || bitmap.getWidth() != width || bitmap.getHeight() != height
+                || drawable.getColorFilter() != null || drawable.getAlpha() != 255
+                || bitmapDrawable.getGravity() != Gravity.FILL
+                || bitmapDrawable.getTileModeX() != null || bitmapDrawable.getTileModeY() != null
+                || bitmapDrawable.isAutoMirrored()
+                || bitmap.getConfig() != policy.getFinalConfig(!bitmap.hasAlpha())) {
+            return null;
+        }
+        // A tint has no public getter and is only set on the paint while drawing
+        PlainBitmapProbe probe = new PlainBitmapProbe(bitmap, width, height);
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(probe);
+        return probe.isPlain() ? bitmap : null;
+    }
+
+    /**
+     * A canvas which draws nothing, and records whether a drawable drew its bitmap
+     * once, unscaled and with a paint which does not change the pixels.
+     */
+    private static final class PlainBitmapProbe extends Canvas {
+        private final Bitmap bitmap;
+        private final int width;
+        private final int height;
+        private int bitmapDrawCount;
+        private boolean plain;
+
+        PlainBitmapProbe(@NonNull Bitmap bitmap, int width, int height) {
+            this.bitmap = bitmap;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull Rect dst,
+                               @Nullable Paint paint) {
+            bitmapDrawCount++;
+            plain = bitmap == this.bitmap && src == null
+                    && dst.left == 0 && dst.top == 0 && dst.right == width && dst.bottom == height
+                    && (paint == null || (paint.getColorFilter() == null && paint.getAlpha() == 255
+                    && paint.getShader() == null && paint.getXfermode() == null));
+        }
+
+        boolean isPlain() {
+            return bitmapDrawCount == 1 && plain;
+        }
+    }
 }
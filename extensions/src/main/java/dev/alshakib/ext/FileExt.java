@@ -26,15 +26,436 @@
 
 package dev.alshakib.ext;
 
-import java.text.DecimalFormat;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
 
 public final class FileExt {
+    /**
+     * Units of 1024 bytes named KB, MB, GB etc.
+     */
+    public static final int UNITS_BINARY = 0;
+    /**
+     * Units of 1000 bytes named kB, MB, GB etc.
+     */
+    public static final int UNITS_SI = 1;
+    /**
+     * Units of 1024 bytes named KiB, MiB, GiB etc.
+     */
+    public static final int UNITS_IEC = 2;
+
+    private static final String[][] UNIT_NAMES = new String[][] {
+            { "B", "KB", "MB", "GB", "TB", "PB", "EB" },
+            { "B", "kB", "MB", "GB", "TB", "PB", "EB" },
+            { "B", "KiB", "MiB", "GiB", "TiB", "PiB", "EiB" }
+    };
+
+    private static final long[] POWERS_OF_1000 = new long[] {
+            1L, 1000L, 1000000L, 1000000000L, 1000000000000L, 1000000000000000L, 1000000000000000000L
+    };
+
+    private static final int MAX_FILE_SIZE_LENGTH = 16;
+
+    // Bytes handed to one transferTo call, so that progress can be reported in between
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = 100 * 1000 * 1000L;
+    // Time constant of the smoothed throughput
+    private static final double THROUGHPUT_TIME_CONSTANT_NANOS = 1000 * 1000 * 1000.0;
 
+    private static volatile SizeSymbols sizeSymbols;
+
+    public interface OnTransferProgressListener {
+        /**
+         * Called on the copying thread at most every 100 milliseconds, and once when
+         * the transfer is done.
+         *
+         * @param bytes Bytes transferred so far
+         * @param totalBytes Size of the source when the transfer started
+         * @param bytesPerSecond Smoothed throughput in bytes per second
+         * @param readableThroughput Smoothed throughput like 1.5 MB/s
+         */
+        void onProgress(long bytes, long totalBytes, long bytesPerSecond, @NonNull String readableThroughput);
+    }
+
+    /**
+     * Get readable file size like 1.5 MB, in units of 1024 bytes.
+     *
+     * @param size Size in bytes
+     * @return A non nullable string of readable file size
+     */
+    @NonNull
     public static String readableFileSize(long size) {
-        if(size <= 0) return "0 B";
-        final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" };
-        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
-        return new DecimalFormat("#,##0.#")
-                .format(size / Math.pow(1024, digitGroups)) + " " + units[digitGroups];
+        return readableFileSize(size, UNITS_BINARY);
+    }
+
+    /**
+     * Get readable file size like 1.5 MB, with one decimal digit at most.
+     *
+     * @param size Size in bytes
+     * @param units One of FileExt.UNITS_BINARY, FileExt.UNITS_SI or FileExt.UNITS_IEC
+     * @return A non nullable string of readable file size
+     */
+    @NonNull
+    public static String readableFileSize(long size, int units) {
+        checkUnits(units);
+        StringBuilder builder = new StringBuilder(MAX_FILE_SIZE_LENGTH);
+        appendFileSize(builder, size, units, getSizeSymbols(Locale.getDefault()));
+        return builder.toString();
+    }
+
+    /**
+     * Append readable file size like 1.5 MB, with one decimal digit at most.
+     *
+     * @param size Size in bytes
+     * @param units One of FileExt.UNITS_BINARY, FileExt.UNITS_SI or FileExt.UNITS_IEC
+     * @param out Appendable to append the readable file size to
+     * @throws IOException If the appendable fails
+     */
+    public static void readableFileSize(long size, int units, @NonNull Appendable out) throws IOException {
+        checkUnits(units);
+        SizeSymbols symbols = getSizeSymbols(Locale.getDefault());
+        if (out instanceof StringBuilder) {
+            appendFileSize((StringBuilder) out, size, units, symbols);
+        } else {
+            StringBuilder builder = new StringBuilder(MAX_FILE_SIZE_LENGTH);
+            appendFileSize(builder, size, units, symbols);
+            out.append(builder);
+        }
+    }
+
+    /**
+     * Get readable file sizes of many files, such as the rows of a list, at once.
+     *
+     * @param sizes Sizes in bytes
+     * @param units One of FileExt.UNITS_BINARY, FileExt.UNITS_SI or FileExt.UNITS_IEC
+     * @return Readable file sizes in the order of the sizes
+     */
+    @NonNull
+    public static String[] readableFileSizes(@NonNull long[] sizes, int units) {
+        checkUnits(units);
+        SizeSymbols symbols = getSizeSymbols(Locale.getDefault());
+        String[] readableSizes = new String[sizes.length];
+        StringBuilder builder = new StringBuilder(MAX_FILE_SIZE_LENGTH);
+        for (int i = 0; i < sizes.length; i++) {
+            builder.setLength(0);
+            appendFileSize(builder, sizes[i], units, symbols);
+            readableSizes[i] = builder.toString();
+        }
+        return readableSizes;
+    }
+
+    /**
+     * Get the total size of the regular files in a directory tree. Directories are walked
+     * in parallel, and every directory is listed again on every call; keep a
+     * {@link DirectorySizeScanner} to reuse the listings of unchanged directories.
+     *
+     * @param directory Directory to scan, or a file to get the size of
+     * @return Size of the files in bytes
+     * @see DirectorySizeScanner
+     */
+    @WorkerThread
+    public static long getDirectorySize(@NonNull File directory) {
+        return ScannerHolder.SCANNER.scan(directory);
+    }
+
+    /**
+     * Get readable size of a directory tree like 1.5 MB, in units of 1024 bytes.
+     *
+     * @param directory Directory to scan, or a file to get the size of
+     * @return A non nullable string of readable directory size
+     */
+    @NonNull
+    @WorkerThread
+    public static String readableDirectorySize(@NonNull File directory) {
+        return readableFileSize(getDirectorySize(directory), UNITS_BINARY);
+    }
+
+    /**
+     * Get readable size of a directory tree like 1.5 MB, with one decimal digit at most.
+     *
+     * @param directory Directory to scan, or a file to get the size of
+     * @param units One of FileExt.UNITS_BINARY, FileExt.UNITS_SI or FileExt.UNITS_IEC
+     * @return A non nullable string of readable directory size
+     */
+    @NonNull
+    @WorkerThread
+    public static String readableDirectorySize(@NonNull File directory, int units) {
+        checkUnits(units);
+        return readableFileSize(getDirectorySize(directory), units);
+    }
+
+    /**
+     * Copy a file, replacing the target. The file is transferred by the kernel where
+     * possible, without copying it through the Java heap. It is copied to a temporary
+     * file next to the target, which then replaces the target atomically.
+     *
+     * @param source File to copy
+     * @param target File to copy to
+     * @param listener Listener to report the progress to
+     * @return Number of bytes copied
+     * @throws IOException If the file cannot be copied. The target is left as it was.
+     */
+    @WorkerThread
+    public static long copy(@NonNull File source, @NonNull File target,
+                            @Nullable OnTransferProgressListener listener) throws IOException {
+        if (source.getCanonicalPath().equals(target.getCanonicalPath())) {
+            throw new IOException("Source and target are the same file: " + source);
+        }
+        try (FileInputStream input = new FileInputStream(source)) {
+            File temp = File.createTempFile("." + target.getName() + "-", ".tmp",
+                    target.getAbsoluteFile().getParentFile());
+            boolean renamed = false;
+            try {
+                long bytes;
+                try (FileOutputStream output = new FileOutputStream(temp)) {
+                    bytes = transfer(input.getChannel(), output.getChannel(), listener);
+                    output.getFD().sync();
+                }
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Failed to replace " + target + " with its copy.");
+                }
+                renamed = true;
+                return bytes;
+            } finally {
+                if (!renamed) {
+                    //noinspection ResultOfMethodCallIgnored
+                    temp.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Move a file, replacing the target. Within one file system the file is renamed
+     * atomically, otherwise it is copied and then deleted.
+     *
+     * @param source File to move
+     * @param target File to move to
+     * @param listener Listener to report the progress of a copy to
+     * @throws IOException If the file cannot be moved
+     */
+    @WorkerThread
+    public static void move(@NonNull File source, @NonNull File target,
+                            @Nullable OnTransferProgressListener listener) throws IOException {
+        try {
+            Os.rename(source.getPath(), target.getPath());
+            return;
+        } catch (ErrnoException e) {
+            if (e.errno != OsConstants.EXDEV) {
+                throw e.rethrowAsIOException();
+            }
+        }
+        copy(source, target, listener);
+        //noinspection ResultOfMethodCallIgnored
+        target.setLastModified(source.lastModified());
+        if (!source.delete()) {
+            throw new IOException("Failed to delete " + source + " after copying it.");
+        }
+    }
+
+    private static long transfer(@NonNull FileChannel input, @NonNull FileChannel output,
+                                 @Nullable OnTransferProgressListener listener) throws IOException {
+        long size = input.size();
+        TransferProgress progress = listener != null ? new TransferProgress(listener, size) : null;
+        long position = 0;
+        while (position < size) {
+            long transferred = input.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), output);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            if (progress != null) {
+                progress.update(position, false);
+            }
+        }
+        // Copy the rest, if transferTo stopped early or the source grew, through a buffer
+        // outside of the Java heap
+        if (position < input.size()) {
+            input.position(position);
+            output.position(position);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
+                }
+                buffer.clear();
+                position += read;
+                if (progress != null) {
+                    progress.update(position, false);
+                }
+            }
+        }
+        if (progress != null) {
+            progress.update(position, true);
+        }
+        return position;
+    }
+
+    /**
+     * Append a size the same as DecimalFormat("#,##0.#") of the size divided by its largest
+     * unit as a double, choosing the unit without floating point error.
+     */
+    private static void appendFileSize(@NonNull StringBuilder out, long size, int units,
+                                       @NonNull SizeSymbols symbols) {
+        if (size <= 0) {
+            out.append("0 B");
+            return;
+        }
+        int group;
+        long whole;
+        long numerator;
+        long denominator;
+        if (units == UNITS_SI) {
+            // Largest power of 1000 not above the size, estimated from the bit length
+            group = (63 - Long.numberOfLeadingZeros(size)) * 3 / 31;
+            if (group + 1 < POWERS_OF_1000.length && size >= POWERS_OF_1000[group + 1]) {
+                group++;
+            }
+            long unit = POWERS_OF_1000[group];
+            whole = size / unit;
+            // Tenths are remainder / (unit / 10)
+            numerator = size % unit;
+            denominator = Math.max(unit / 10, 1);
+        } else {
+            group = (63 - Long.numberOfLeadingZeros(size)) / 10;
+            int shift = group * 10;
+            whole = size >>> shift;
+            // Tenths are remainder * 5 / (unit / 2), which cannot overflow
+            numerator = (size & ((1L << shift) - 1)) * 5;
+            denominator = Math.max(1L << shift >>> 1, 1);
+        }
+        long tenth = numerator / denominator;
+        long remainder = numerator % denominator;
+        boolean roundUp = remainder * 2 > denominator;
+        if (remainder * 2 == denominator) {
+            // A double of a binary unit is exact, but a double of a decimal half is not,
+            // and DecimalFormat rounds the double
+            int side = units == UNITS_SI
+                    ? new BigDecimal((double) size / POWERS_OF_1000[group])
+                            .compareTo(BigDecimal.valueOf(size, 3 * group))
+                    : 0;
+            roundUp = side > 0 || (side == 0 && (tenth & 1) == 1);
+        }
+        if (group > 0 && roundUp) {
+            tenth++;
+            if (tenth == 10) {
+                tenth = 0;
+                whole++;
+            }
+        }
+        appendGrouped(out, whole, symbols);
+        if (group > 0 && tenth != 0) {
+            out.append(symbols.decimalSeparator).append((char) (symbols.zeroDigit + tenth));
+        }
+        out.append(' ').append(UNIT_NAMES[units][group]);
+    }
+
+    private static void appendGrouped(@NonNull StringBuilder out, long value, @NonNull SizeSymbols symbols) {
+        if (value >= 1000) {
+            appendGrouped(out, value / 1000, symbols);
+            out.append(symbols.groupingSeparator);
+            long rest = value % 1000;
+            out.append((char) (symbols.zeroDigit + rest / 100))
+                    .append((char) (symbols.zeroDigit + rest / 10 % 10))
+                    .append((char) (symbols.zeroDigit + rest % 10));
+        } else if (value >= 10) {
+            appendGrouped(out, value / 10, symbols);
+            out.append((char) (symbols.zeroDigit + value % 10));
+        } else {
+            out.append((char) (symbols.zeroDigit + value));
+        }
+    }
+
+    private static void checkUnits(int units) {
+        if (units < UNITS_BINARY || units > UNITS_IEC) {
+            throw new IllegalArgumentException("Invalid units. Must be one of FileExt.UNITS_*.");
+        }
+    }
+
+    /**
+     * Get the number symbols of a locale, remembering the last locale asked for.
+     */
+    @NonNull
+    private static SizeSymbols getSizeSymbols(@NonNull Locale locale) {
+        SizeSymbols symbols = sizeSymbols;
+        if (symbols == null || !symbols.locale.equals(locale)) {
+            symbols = new SizeSymbols(locale);
+            sizeSymbols = symbols;
+        }
+        return symbols;
+    }
+
+    private static final class ScannerHolder {
+        // Remembers nothing, as a static cache would not see files changed in place
+        static final DirectorySizeScanner SCANNER = new DirectorySizeScanner(0);
+    }
+
+    private static final class TransferProgress {
+        private final OnTransferProgressListener listener;
+        private final long totalBytes;
+        private long lastTime;
+        private long lastBytes;
+        private double bytesPerNano = -1;
+
+        TransferProgress(@NonNull OnTransferProgressListener listener, long totalBytes) {
+            this.listener = listener;
+            this.totalBytes = totalBytes;
+            this.lastTime = System.nanoTime();
+        }
+
+        void update(long bytes, boolean done) {
+            long now = System.nanoTime();
+            long elapsed = now - lastTime;
+            if (!done && elapsed < PROGRESS_INTERVAL_NANOS) {
+                return;
+            }
+            if (elapsed > 0) {
+                double rate = (double) (bytes - lastBytes) / elapsed;
+                if (bytesPerNano < 0) {
+                    bytesPerNano = rate;
+                } else {
+                    // Weight the new rate by the time it was measured over, so that
+                    // uneven intervals are smoothed the same
+                    double weight = 1 - Math.exp(-elapsed / THROUGHPUT_TIME_CONSTANT_NANOS);
+                    bytesPerNano += weight * (rate - bytesPerNano);
+                }
+            }
+            lastTime = now;
+            lastBytes = bytes;
+            long bytesPerSecond = Math.round(Math.max(bytesPerNano, 0) * 1e9);
+            listener.onProgress(bytes, totalBytes, bytesPerSecond, readableFileSize(bytesPerSecond) + "/s");
+        }
+    }
+
+    private static final class SizeSymbols {
+        final Locale locale;
+        final char zeroDigit;
+        final char decimalSeparator;
+        final char groupingSeparator;
+
+        SizeSymbols(@NonNull Locale locale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            this.locale = locale;
+            this.zeroDigit = symbols.getZeroDigit();
+            this.decimalSeparator = symbols.getDecimalSeparator();
+            this.groupingSeparator = symbols.getGroupingSeparator();
+        }
     }
 }
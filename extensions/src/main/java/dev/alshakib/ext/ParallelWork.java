@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A shared fork join pool for CPU bound batch work, such as validating or sorting
+ * large lists. The common pool is only available on API 24 and above.
+ */
+final class ParallelWork {
+    private ParallelWork() { }
+
+    interface ChunkAction {
+        void run(int start, int end);
+    }
+
+    @NonNull
+    static ForkJoinPool getPool() {
+        return PoolHolder.POOL;
+    }
+
+    /**
+     * Run an action over [0, count) in chunks, in parallel when there is more than one
+     * chunk. Chunk boundaries are multiples of the chunk size.
+     */
+    static void forEachChunk(int count, int chunkSize, @NonNull ChunkAction action) {
+        if (count <= chunkSize) {
+            if (count > 0) {
+                action.run(0, count);
+            }
+            return;
+        }
+        getPool().invoke(new ChunkTask(0, count, chunkSize, action));
+    }
+
+    /**
+     * Sort an array with a stable merge sort, whose halves are sorted in parallel
+     * when the array is long. Arrays.parallelSort is only available on API 24 and above.
+     */
+    static <T extends Comparable<? super T>> void sort(@NonNull T[] array, int sequentialThreshold) {
+        if (array.length <= sequentialThreshold) {
+            Arrays.sort(array);
+            return;
+        }
+        T[] buffer = array.clone();
+        getPool().invoke(new SortTask<>(array, buffer, 0, array.length, sequentialThreshold));
+    }
+
+    private static final class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+        private final int chunkSize;
+        private final ChunkAction action;
+
+        ChunkTask(int start, int end, int chunkSize, @NonNull ChunkAction action) {
+            this.start = start;
+            this.end = end;
+            this.chunkSize = chunkSize;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            int chunks = (end - start + chunkSize - 1) / chunkSize;
+            if (chunks <= 1) {
+                action.run(start, end);
+                return;
+            }
+            int middle = start + (chunks / 2) * chunkSize;
+            invokeAll(new ChunkTask(start, middle, chunkSize, action),
+                    new ChunkTask(middle, end, chunkSize, action));
+        }
+    }
+
+    private static final class SortTask<T extends Comparable<? super T>> extends RecursiveAction {
+        private final T[] array;
+        private final T[] buffer;
+        private final int start;
+        private final int end;
+        private final int sequentialThreshold;
+
+        SortTask(@NonNull T[] array, @NonNull T[] buffer, int start, int end, int sequentialThreshold) {
+            this.array = array;
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.sequentialThreshold = sequentialThreshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= sequentialThreshold) {
+                Arrays.sort(array, start, end);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new SortTask<>(array, buffer, start, middle, sequentialThreshold),
+                    new SortTask<>(array, buffer, middle, end, sequentialThreshold));
+            if (array[middle - 1].compareTo(array[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(array, start, buffer, start, end - start);
+            int left = start;
+            int right = middle;
+            for (int i = start; i < end; i++) {
+                // Ties take the left element, which keeps the sort stable
+                if (right >= end || (left < middle && buffer[left].compareTo(buffer[right]) <= 0)) {
+                    array[i] = buffer[left++];
+                } else {
+                    array[i] = buffer[right++];
+                }
+            }
+        }
+    }
+}
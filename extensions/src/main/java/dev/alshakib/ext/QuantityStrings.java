@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.util.LongSparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.PluralsRes;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Rendered quantity strings of plural resources whose arguments are all the quantity,
+ * such as "5 minutes". Strings are cached per resources by plural resource and quantity,
+ * and flushed when the configuration, and so the locale, changes.
+ */
+final class QuantityStrings {
+    private static final int MAX_CACHED_STRINGS = 512;
+
+    private static final Map<Resources, QuantityStrings> CACHE = new WeakHashMap<>();
+
+    private final Configuration configuration;
+    private final LongSparseArray<String> strings = new LongSparseArray<>();
+
+    private QuantityStrings(@NonNull Configuration configuration) {
+        this.configuration = new Configuration(configuration);
+    }
+
+    /**
+     * Get a quantity string the same as
+     * getQuantityString(res, quantity, quantity, quantity, quantity, quantity).
+     */
+    @NonNull
+    static String get(@NonNull Resources resources, @PluralsRes int res, int quantity) {
+        long key = ((long) res << 32) | (quantity & 0xFFFFFFFFL);
+        QuantityStrings cached;
+        synchronized (CACHE) {
+            Configuration configuration = resources.getConfiguration();
+            cached = CACHE.get(resources);
+            if (cached == null || cached.configuration.diff(configuration) != 0) {
+                cached = new QuantityStrings(configuration);
+                CACHE.put(resources, cached);
+            }
+            String string = cached.strings.get(key);
+            if (string != null) {
+                return string;
+            }
+        }
+        String string = resources.getQuantityString(res, quantity,
+                quantity, quantity, quantity, quantity, quantity);
+        synchronized (CACHE) {
+            if (cached.strings.size() >= MAX_CACHED_STRINGS) {
+                cached.strings.clear();
+            }
+            cached.strings.put(key, string);
+        }
+        return string;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.res.Resources;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.PluralsRes;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Plural resources and units of {@link TimeExt#getReadableTime}. A config is validated
+ * once when it is built, so that formatting with it picks the unit from a table and
+ * does no lookups. Months are counted as 30 days and years as 365 days.
+ */
+public final class ReadableTimeConfig {
+    private static final long[] UNIT_DURATIONS = new long[] {
+            1000L,
+            60 * 1000L,
+            60 * 60 * 1000L,
+            24 * 60 * 60 * 1000L,
+            7 * 24 * 60 * 60 * 1000L,
+            30 * 24 * 60 * 60 * 1000L,
+            365 * 24 * 60 * 60 * 1000L
+    };
+
+    private static final int[] DEFAULT_PLURAL_RES = new int[] {
+            R.plurals.time_in_seconds,
+            R.plurals.time_in_minutes,
+            R.plurals.time_in_hours,
+            R.plurals.time_in_days,
+            R.plurals.time_in_weeks,
+            R.plurals.time_in_months,
+            R.plurals.time_in_years
+    };
+
+    private static final ReadableTimeConfig DEFAULT = new Builder().build();
+
+    // Plural resource and duration of each unit, smallest first
+    private final int[] pluralRes;
+    private final long[] durations;
+
+    private ReadableTimeConfig(@NonNull int[] pluralRes) {
+        this.pluralRes = pluralRes;
+        this.durations = Arrays.copyOf(UNIT_DURATIONS, pluralRes.length);
+    }
+
+    /**
+     * Get the config of seconds up to weeks with the plural resources of this library.
+     *
+     * @return The default config
+     */
+    @NonNull
+    public static ReadableTimeConfig getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Convert a map of TimeExt.PLURAL_RES_* units to plural resource ids, of seconds up to
+     * weeks, falling back to the plural resources of this library for missing units.
+     */
+    @NonNull
+    static ReadableTimeConfig fromMap(@NonNull Map<Integer, Integer> resMap) {
+        Builder builder = new Builder();
+        for (int unit = TimeExt.PLURAL_RES_SECONDS; unit <= TimeExt.PLURAL_RES_WEEKS; unit++) {
+            Integer res = resMap.get(unit);
+            if (res != null) {
+                builder.setPluralRes(unit, res);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Format an elapsed time with the plural resource of its largest whole unit.
+     */
+    @NonNull
+    String format(@NonNull Resources resources, long milliseconds) {
+        int unit = getUnit(milliseconds);
+        long quantity = milliseconds / durations[unit];
+        return QuantityStrings.get(resources, pluralRes[unit],
+                (int) Math.max(Math.min(quantity, Integer.MAX_VALUE), Integer.MIN_VALUE));
+    }
+
+    /**
+     * Get the period the formatted text of an elapsed time changes at.
+     */
+    long getPeriod(long milliseconds) {
+        return durations[getUnit(milliseconds)];
+    }
+
+    private int getUnit(long milliseconds) {
+        int unit = durations.length - 1;
+        while (unit > 0 && milliseconds < durations[unit]) {
+            unit--;
+        }
+        return unit;
+    }
+
+    public static final class Builder {
+        private final int[] pluralRes = DEFAULT_PLURAL_RES.clone();
+        private int largestUnit = TimeExt.PLURAL_RES_WEEKS;
+
+        /**
+         * Set the plural resource of a unit. The resource is formatted with the quantity
+         * as every argument.
+         *
+         * @param unit One of TimeExt.PLURAL_RES_SECONDS up to TimeExt.PLURAL_RES_YEARS
+         * @param res Plural resource id of the unit
+         * @return This builder
+         */
+        @NonNull
+        public Builder setPluralRes(int unit, @PluralsRes int res) {
+            checkUnit(unit);
+            if (res == 0) {
+                throw new IllegalArgumentException("Invalid plural resource id.");
+            }
+            pluralRes[unit - 1] = res;
+            return this;
+        }
+
+        /**
+         * Set the largest unit to format time in. The default is weeks.
+         *
+         * @param unit One of TimeExt.PLURAL_RES_SECONDS up to TimeExt.PLURAL_RES_YEARS
+         * @return This builder
+         */
+        @NonNull
+        public Builder setLargestUnit(int unit) {
+            checkUnit(unit);
+            largestUnit = unit;
+            return this;
+        }
+
+        @NonNull
+        public ReadableTimeConfig build() {
+            return new ReadableTimeConfig(Arrays.copyOf(pluralRes, largestUnit));
+        }
+
+        private static void checkUnit(int unit) {
+            if (unit < TimeExt.PLURAL_RES_SECONDS || unit > TimeExt.PLURAL_RES_YEARS) {
+                throw new IllegalArgumentException("Invalid unit. Must be one of TimeExt.PLURAL_RES_*.");
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps labels showing {@link TimeExt#getReadableTime(android.content.Context, long)} of a
+ * timestamp up to date. Each label is refreshed only when its text changes, at the next
+ * whole unit of time since its timestamp, and all labels due by then are
+ * refreshed together from a single frame callback. Labels are paused while their view is
+ * detached from the window and resume when it is attached again. Only attached labels
+ * are referenced from here, so a label whose view is dropped without being unregistered
+ * does not leak.
+ */
+public final class ReadableTimeTicker {
+    private static final long MAX_DELAY = 60 * 1000L;
+
+    // Labels of attached views, the only ones which are updated
+    private static final List<Label> LABELS = new ArrayList<>();
+    private static final Choreographer.FrameCallback FRAME_CALLBACK = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            scheduledTime = Long.MAX_VALUE;
+            tick(System.currentTimeMillis());
+        }
+    };
+
+    private static long scheduledTime = Long.MAX_VALUE;
+    // Incremented by unregisterAll, which can not reach the labels of detached views
+    private static int generation;
+
+    /**
+     * Show the readable time since a timestamp on a label and keep it up to date while
+     * the label is attached to a window. Registering a label again replaces its timestamp.
+     *
+     * @param textView Label to show the readable time on
+     * @param timestamp Time in {@link System#currentTimeMillis()} milliseconds to count from
+     */
+    @MainThread
+    public static void register(@NonNull TextView textView, long timestamp) {
+        register(textView, timestamp, ReadableTimeConfig.getDefault());
+    }
+
+    /**
+     * Show the readable time since a timestamp on a label, with the plural resources and
+     * units of a config, and keep it up to date while the label is attached to a window.
+     * Registering a label again replaces its timestamp and config.
+     *
+     * @param textView Label to show the readable time on
+     * @param timestamp Time in {@link System#currentTimeMillis()} milliseconds to count from
+     * @param config Plural resources and units to format with
+     */
+    @MainThread
+    public static void register(@NonNull TextView textView, long timestamp, @NonNull ReadableTimeConfig config) {
+        Label label = getLabel(textView);
+        if (label == null) {
+            label = new Label(textView);
+            textView.addOnAttachStateChangeListener(label);
+            textView.setTag(R.id.readable_time_ticker_label, label);
+        }
+        label.timestamp = timestamp;
+        label.config = config;
+        long now = System.currentTimeMillis();
+        label.update(now);
+        if (textView.isAttachedToWindow()) {
+            resume(label, now);
+        }
+    }
+
+    /**
+     * Stop updating a label.
+     *
+     * @param textView Label to stop updating
+     */
+    @MainThread
+    public static void unregister(@NonNull TextView textView) {
+        Label label = getLabel(textView);
+        if (label != null) {
+            remove(label);
+        }
+    }
+
+    /**
+     * Stop updating all labels.
+     */
+    @MainThread
+    public static void unregisterAll() {
+        generation++;
+        for (int i = LABELS.size() - 1; i >= 0; i--) {
+            remove(LABELS.get(i));
+        }
+    }
+
+    /**
+     * Get the number of labels being updated, which are the registered labels whose
+     * view is attached to a window.
+     *
+     * @return Number of attached registered labels
+     */
+    @MainThread
+    public static int getCount() {
+        return LABELS.size();
+    }
+
+    @Nullable
+    private static Label getLabel(@NonNull TextView textView) {
+        Label label = (Label) textView.getTag(R.id.readable_time_ticker_label);
+        if (label != null && label.generation != generation) {
+            remove(label);
+            return null;
+        }
+        return label;
+    }
+
+    private static void resume(@NonNull Label label, long now) {
+        if (!label.attached) {
+            label.attached = true;
+            LABELS.add(label);
+        }
+        schedule(label.deadline, now);
+    }
+
+    private static void pause(@NonNull Label label) {
+        if (label.attached) {
+            label.attached = false;
+            LABELS.remove(label);
+            if (LABELS.isEmpty()) {
+                cancel();
+            }
+        }
+    }
+
+    private static void remove(@NonNull Label label) {
+        pause(label);
+        label.textView.removeOnAttachStateChangeListener(label);
+        label.textView.setTag(R.id.readable_time_ticker_label, null);
+    }
+
+    private static void tick(long now) {
+        long deadline = Long.MAX_VALUE;
+        for (int i = 0; i < LABELS.size(); i++) {
+            Label label = LABELS.get(i);
+            if (label.nextChange <= now) {
+                label.update(now);
+            }
+            deadline = Math.min(deadline, label.deadline);
+        }
+        schedule(deadline, now);
+    }
+
+    private static void schedule(long deadline, long now) {
+        if (deadline >= scheduledTime || LABELS.isEmpty()) {
+            return;
+        }
+        cancel();
+        // Wall clock changes are picked up at least once every MAX_DELAY
+        long delay = Math.min(Math.max(deadline - now, 0), MAX_DELAY);
+        scheduledTime = now + delay;
+        Choreographer.getInstance().postFrameCallbackDelayed(FRAME_CALLBACK, delay);
+    }
+
+    private static void cancel() {
+        if (scheduledTime != Long.MAX_VALUE) {
+            Choreographer.getInstance().removeFrameCallback(FRAME_CALLBACK);
+            scheduledTime = Long.MAX_VALUE;
+        }
+    }
+
+    private static final class Label implements View.OnAttachStateChangeListener {
+        final TextView textView;
+        final int generation = ReadableTimeTicker.generation;
+        boolean attached;
+        long timestamp;
+        ReadableTimeConfig config;
+        // Time the text changes at, and the latest time to show the change by
+        long nextChange;
+        long deadline;
+        String text;
+
+        Label(@NonNull TextView textView) {
+            this.textView = textView;
+        }
+
+        void update(long now) {
+            long elapsed = now - timestamp;
+            String readableTime = config.format(textView.getContext().getResources(), elapsed);
+            if (!readableTime.equals(text)) {
+                text = readableTime;
+                textView.setText(readableTime);
+            }
+            long period = config.getPeriod(elapsed);
+            long periods = elapsed / period;
+            if (elapsed < 0 && periods * period != elapsed) {
+                periods--;
+            }
+            nextChange = timestamp + (periods + 1) * period;
+            // Allow a sixtieth of the period of lateness, so changes of labels close
+            // together are shown in the same frame
+            deadline = nextChange + Math.min(period / 60, MAX_DELAY);
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            if (generation != ReadableTimeTicker.generation) {
+                remove(this);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            update(now);
+            resume(this, now);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            pause(this);
+        }
+    }
+}
@@ -0,0 +1,559 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An in-memory search index of texts by id. Each text is normalized once to its
+ * alphanumeric characters in lower case, the same as {@link StringExt#getAlphaNumeric(String)}
+ * but case insensitive, and the keys share one char array. Prefix queries binary search
+ * a sorted list of the keys, and substring queries of three or more characters only
+ * check the entries which hold the rarest trigram of the query.
+ */
+public final class SearchIndex {
+    private static final int MIN_COMPACT_COUNT = 1024;
+    private static final int[] EMPTY_RESULT = new int[0];
+
+    private char[] chars = new char[1024];
+    private int charCount;
+
+    private int[] ids = new int[64];
+    private int[] starts = new int[64];
+    private int[] lengths = new int[64];
+    private boolean[] removed = new boolean[64];
+    private int slotCount;
+    private int removedCount;
+
+    // Slots of the entries, ordered by key
+    private int[] sorted = new int[64];
+    private int sortedCount;
+
+    private final SlotTable slotsById = new SlotTable();
+    // Slots of the entries which hold a trigram, with the count of slots at index 0
+    private final PostingTable postings = new PostingTable();
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Add a text to the index, replacing the text of the same id.
+     *
+     * @param id Id of the text, returned by queries
+     * @param text Text to index
+     */
+    public synchronized void add(int id, @NonNull CharSequence text) {
+        remove(id);
+        int slot = append(id, text);
+        int position = upperBound(chars, starts[slot], lengths[slot]);
+        if (sortedCount == sorted.length) {
+            sorted = Arrays.copyOf(sorted, sortedCount * 2);
+        }
+        System.arraycopy(sorted, position, sorted, position + 1, sortedCount - position);
+        sorted[position] = slot;
+        sortedCount++;
+    }
+
+    /**
+     * Add texts to the index, replacing the texts of the same ids. The keys are
+     * sorted once, which is faster than adding a long list one by one.
+     *
+     * @param textIds Ids of the texts
+     * @param texts Texts to index, at the same indices as the ids
+     */
+    public synchronized void addAll(@NonNull int[] textIds, @NonNull List<? extends CharSequence> texts) {
+        if (textIds.length != texts.size()) {
+            throw new IllegalArgumentException("textIds.length != texts.size()");
+        }
+        for (int id : textIds) {
+            remove(id);
+        }
+        int firstSlot = slotCount;
+        for (int i = 0; i < textIds.length; i++) {
+            // An id repeated in the list replaces its earlier text
+            int previous = slotsById.get(textIds[i]);
+            if (previous >= 0) {
+                removed[previous] = true;
+                removedCount++;
+            }
+            append(textIds[i], texts.get(i));
+        }
+        Integer[] order = new Integer[sortedCount + slotCount - firstSlot];
+        int count = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            order[count++] = sorted[i];
+        }
+        for (int slot = firstSlot; slot < slotCount; slot++) {
+            if (!removed[slot]) {
+                order[count++] = slot;
+            }
+        }
+        Arrays.sort(order, 0, count, (a, b) -> {
+            int compare = compare(a, chars, starts[b], lengths[b]);
+            return compare != 0 ? compare : Integer.compare(a, b);
+        });
+        if (sorted.length < count) {
+            sorted = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            sorted[i] = order[i];
+        }
+        sortedCount = count;
+    }
+
+    /**
+     * Remove a text from the index.
+     *
+     * @param id Id of the text
+     * @return true if the text was in the index
+     */
+    public synchronized boolean remove(int id) {
+        int slot = slotsById.get(id);
+        if (slot < 0) {
+            return false;
+        }
+        slotsById.remove(id);
+        removed[slot] = true;
+        removedCount++;
+        int position = lowerBound(chars, starts[slot], lengths[slot]);
+        while (sorted[position] != slot) {
+            position++;
+        }
+        System.arraycopy(sorted, position + 1, sorted, position, sortedCount - position - 1);
+        sortedCount--;
+        // Postings of removed entries are skipped by queries until the index is compacted
+        if (removedCount >= MIN_COMPACT_COUNT && removedCount > slotCount / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Remove all texts from the index.
+     */
+    public synchronized void clear() {
+        charCount = 0;
+        slotCount = 0;
+        removedCount = 0;
+        sortedCount = 0;
+        slotsById.clear();
+        postings.clear();
+    }
+
+    public synchronized int size() {
+        return sortedCount;
+    }
+
+    /**
+     * Find the texts whose key starts with the key of a query.
+     *
+     * @param query Text to search
+     * @return Ids of the matching texts, ordered by key
+     */
+    @NonNull
+    public synchronized int[] searchPrefix(@NonNull CharSequence query) {
+        char[] key = normalize(query);
+        int position = lowerBound(key, 0, key.length);
+        int end = position;
+        while (end < sortedCount && startsWith(sorted[end], key)) {
+            end++;
+        }
+        if (end == position) {
+            return EMPTY_RESULT;
+        }
+        int[] result = new int[end - position];
+        for (int i = position; i < end; i++) {
+            result[i - position] = ids[sorted[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Find the texts whose key contains the key of a query.
+     *
+     * @param query Text to search
+     * @return Ids of the matching texts, in the order they were added
+     */
+    @NonNull
+    public synchronized int[] search(@NonNull CharSequence query) {
+        char[] key = normalize(query);
+        int[] result = new int[16];
+        int count = 0;
+        if (key.length < 3) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (!removed[slot] && contains(slot, key)) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = ids[slot];
+                }
+            }
+            return count == 0 ? EMPTY_RESULT : Arrays.copyOf(result, count);
+        }
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= key.length; i++) {
+            int[] posting = postings.get(trigram(key, i));
+            if (posting == null) {
+                return EMPTY_RESULT;
+            }
+            if (candidates == null || posting[0] < candidates[0]) {
+                candidates = posting;
+            }
+        }
+        for (int i = 1; i <= candidates[0]; i++) {
+            int slot = candidates[i];
+            if (!removed[slot] && contains(slot, key)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = ids[slot];
+            }
+        }
+        return count == 0 ? EMPTY_RESULT : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Append the key of a text and index its trigrams, without adding it to the sorted list.
+     */
+    private int append(int id, @NonNull CharSequence text) {
+        buffer.setLength(0);
+        StringExt.appendSearchKey(text, buffer);
+        int length = buffer.length();
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+        }
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        int slot = slotCount++;
+        buffer.getChars(0, length, chars, charCount);
+        ids[slot] = id;
+        starts[slot] = charCount;
+        lengths[slot] = length;
+        removed[slot] = false;
+        charCount += length;
+        slotsById.put(id, slot);
+        indexTrigrams(slot);
+        return slot;
+    }
+
+    @NonNull
+    private char[] normalize(@NonNull CharSequence query) {
+        buffer.setLength(0);
+        StringExt.appendSearchKey(query, buffer);
+        char[] key = new char[buffer.length()];
+        buffer.getChars(0, key.length, key, 0);
+        return key;
+    }
+
+    private void indexTrigrams(int slot) {
+        int start = starts[slot];
+        int end = start + lengths[slot];
+        for (int i = start; i + 3 <= end; i++) {
+            long trigram = trigram(chars, i);
+            int[] posting = postings.get(trigram);
+            if (posting == null) {
+                posting = new int[4];
+                postings.put(trigram, posting);
+            } else if (posting[posting[0]] == slot) {
+                continue;
+            } else if (posting[0] + 1 == posting.length) {
+                posting = Arrays.copyOf(posting, posting.length * 2);
+                postings.put(trigram, posting);
+            }
+            posting[++posting[0]] = slot;
+        }
+    }
+
+    /**
+     * Drop removed entries, repacking the keys and rebuilding the postings.
+     */
+    private void compact() {
+        int[] newSlots = new int[slotCount];
+        char[] newChars = new char[Math.max(charCount, 1024)];
+        int newCharCount = 0;
+        int newSlotCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (removed[slot]) {
+                continue;
+            }
+            System.arraycopy(chars, starts[slot], newChars, newCharCount, lengths[slot]);
+            ids[newSlotCount] = ids[slot];
+            starts[newSlotCount] = newCharCount;
+            lengths[newSlotCount] = lengths[slot];
+            removed[newSlotCount] = false;
+            newSlots[slot] = newSlotCount;
+            newCharCount += lengths[slot];
+            newSlotCount++;
+        }
+        chars = newChars;
+        charCount = newCharCount;
+        slotCount = newSlotCount;
+        removedCount = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            sorted[i] = newSlots[sorted[i]];
+        }
+        slotsById.clear();
+        postings.clear();
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotsById.put(ids[slot], slot);
+            indexTrigrams(slot);
+        }
+    }
+
+    /**
+     * Get the position of the first sorted entry whose key is not less than a key.
+     */
+    private int lowerBound(@NonNull char[] key, int offset, int length) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(sorted[middle], key, offset, length) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the position of the first sorted entry whose key is greater than a key.
+     */
+    private int upperBound(@NonNull char[] key, int offset, int length) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(sorted[middle], key, offset, length) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compare(int slot, @NonNull char[] key, int offset, int length) {
+        int start = starts[slot];
+        int count = Math.min(lengths[slot], length);
+        for (int i = 0; i < count; i++) {
+            int difference = chars[start + i] - key[offset + i];
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return lengths[slot] - length;
+    }
+
+    private boolean startsWith(int slot, @NonNull char[] key) {
+        if (lengths[slot] < key.length) {
+            return false;
+        }
+        int start = starts[slot];
+        for (int i = 0; i < key.length; i++) {
+            if (chars[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(int slot, @NonNull char[] key) {
+        int start = starts[slot];
+        int last = start + lengths[slot] - key.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < key.length; j++) {
+                if (chars[i + j] != key[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static long trigram(@NonNull char[] key, int offset) {
+        return ((long) key[offset] << 32) | ((long) key[offset + 1] << 16) | key[offset + 2];
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Map of ids to slots in primitive arrays, with open addressing and linear probing.
+     */
+    private static final class SlotTable {
+        private int[] keys = new int[64];
+        // Slot + 1, or 0 for a free cell
+        private int[] values = new int[64];
+        private int size;
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(int key, int slot) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == 0) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = slot + 1;
+        }
+
+        void remove(int key) {
+            int mask = keys.length - 1;
+            int gap = hash(key) & mask;
+            while (values[gap] != 0 && keys[gap] != key) {
+                gap = (gap + 1) & mask;
+            }
+            if (values[gap] == 0) {
+                return;
+            }
+            // Shift back the following cells of the run which may no longer be found past the gap
+            for (int i = (gap + 1) & mask; values[i] != 0; i = (i + 1) & mask) {
+                int home = hash(keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    keys[gap] = keys[i];
+                    values[gap] = values[i];
+                    gap = i;
+                }
+            }
+            values[gap] = 0;
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(values, 0);
+            size = 0;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != 0) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (values[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Map of trigrams to postings in primitive arrays, with open addressing and linear
+     * probing. Postings are only dropped all at once.
+     */
+    private static final class PostingTable {
+        private long[] keys = new long[256];
+        private int[][] values = new int[256][];
+        private int size;
+
+        int[] get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, @NonNull int[] posting) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == null) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = posting;
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        private static int hash(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[][] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2][];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+}
@@ -32,13 +32,28 @@ import android.text.TextUtils;
 import android.util.Patterns;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
 
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
 
 public final class StringExt {
     public final static String EMPTY_STRING = "";
 
+    private static final String INTERPUNCT_SEPARATOR = " • ";
+    private static final int VALIDATION_CHUNK_SIZE = 1024;
+    // ASCII symbols which Patterns.WEB_URL allows in the user info and in the path
+    private static final String WEB_URL_USER_INFO_SYMBOLS = "$-_.+!*'(),;?&=";
+    private static final String WEB_URL_PATH_SYMBOLS = ";/?:@&=#~-.+!*'(),_$";
+    private static final String[] WEB_URL_SCHEMES = { "http://", "https://", "rtsp://" };
+
     /**
      * Check if string is blank or not
      *
@@ -50,23 +65,47 @@ public final class StringExt {
     }
 
     /**
-     * Check whether the email address is valid or not.
+     * Check whether the email address is valid or not. The address is checked in one
+     * pass with the same rules as {@link Patterns#EMAIL_ADDRESS}.
      *
      * @param email Email address to check
      * @return true if the email address is valid
      */
     public static boolean isValidEmail(final String email) {
-        return !TextUtils.isEmpty(email) && Patterns.EMAIL_ADDRESS.matcher(email).matches();
+        return !TextUtils.isEmpty(email) && isEmailAddress(email);
     }
 
     /**
-     * Check whether the web URL is valid or not.
+     * Check whether the web URL is valid or not. The URL is checked in one pass with
+     * the same rules as {@link Patterns#WEB_URL}.
      *
      * @param url Web URL to check
      * @return true if the web URL is valid
      */
     public static boolean isValidWebUrl(final String url) {
-        return !TextUtils.isEmpty(url) && Patterns.WEB_URL.matcher(url).matches();
+        return !TextUtils.isEmpty(url) && isWebUrl(url);
+    }
+
+    /**
+     * Check a list of email addresses, in parallel chunks for long lists.
+     *
+     * @param emails Email addresses to check
+     * @return A bit set with the indices of the valid email addresses
+     */
+    @NonNull
+    public static BitSet validateEmails(@NonNull List<? extends CharSequence> emails) {
+        return validate(emails, true);
+    }
+
+    /**
+     * Check a list of web URLs, in parallel chunks for long lists.
+     *
+     * @param urls Web URLs to check
+     * @return A bit set with the indices of the valid web URLs
+     */
+    @NonNull
+    public static BitSet validateWebUrls(@NonNull List<? extends CharSequence> urls) {
+        return validate(urls, false);
     }
 
     /**
@@ -104,25 +143,71 @@ public final class StringExt {
     }
 
     /**
-     * Trim spaces on the left of a string.
+     * Trim spaces on the left of a string. Spaces are the same as the regex class
+     * \s, tab, line feed, form feed, carriage return and Unicode separators.
      *
      * @param s String to trim
-     * @return The final string
+     * @return The final string, or the same string if there is nothing to trim
      */
     @NonNull
     public static String leftTrim(@NonNull String s) {
-        return Pattern.compile("^\\s+").matcher(s).replaceAll(EMPTY_STRING);
+        int start = getLeftTrimIndex(s);
+        return start == 0 ? s : s.substring(start);
     }
 
     /**
-     * Trim spaces on the right of a string.
+     * Trim spaces on the left of a string into a buffer.
      *
      * @param s String to trim
-     * @return The final string
+     * @param out Buffer to append the final string to
+     */
+    public static void leftTrim(@NonNull CharSequence s, @NonNull StringBuilder out) {
+        out.append(s, getLeftTrimIndex(s), s.length());
+    }
+
+    /**
+     * Trim spaces on the left of a string into an appendable.
+     *
+     * @param s String to trim
+     * @param out Appendable to append the final string to
+     * @throws IOException If the appendable fails
+     */
+    public static void leftTrim(@NonNull CharSequence s, @NonNull Appendable out) throws IOException {
+        out.append(s, getLeftTrimIndex(s), s.length());
+    }
+
+    /**
+     * Trim spaces on the right of a string. Spaces are the same as the regex class
+     * \s, tab, line feed, form feed, carriage return and Unicode separators.
+     *
+     * @param s String to trim
+     * @return The final string, or the same string if there is nothing to trim
      */
     @NonNull
     public static String rightTrim(@NonNull String s) {
-        return Pattern.compile("\\s+$").matcher(s).replaceAll(EMPTY_STRING);
+        int end = getRightTrimIndex(s);
+        return end == s.length() ? s : s.substring(0, end);
+    }
+
+    /**
+     * Trim spaces on the right of a string into a buffer.
+     *
+     * @param s String to trim
+     * @param out Buffer to append the final string to
+     */
+    public static void rightTrim(@NonNull CharSequence s, @NonNull StringBuilder out) {
+        out.append(s, 0, getRightTrimIndex(s));
+    }
+
+    /**
+     * Trim spaces on the right of a string into an appendable.
+     *
+     * @param s String to trim
+     * @param out Appendable to append the final string to
+     * @throws IOException If the appendable fails
+     */
+    public static void rightTrim(@NonNull CharSequence s, @NonNull Appendable out) throws IOException {
+        out.append(s, 0, getRightTrimIndex(s));
     }
 
     /**
@@ -153,7 +238,9 @@ public final class StringExt {
     }
 
     /**
-     * Get a nullable string from string resource id with arguments.
+     * Get a nullable string from string resource id with arguments. The string resource
+     * is parsed once per configuration, and simple templates are formatted without
+     * {@link String#format}.
      *
      * @param context Context to get resources
      * @param res String resource id
@@ -161,7 +248,7 @@ public final class StringExt {
      * @return A string value
      */
     public static String getString(@NonNull Context context, @StringRes int res, @NonNull Object... args) {
-        return context.getResources().getString(res, args);
+        return StringTemplate.format(context.getResources(), res, args);
     }
 
     /**
@@ -182,14 +269,113 @@ public final class StringExt {
     }
 
     /**
-     * Remove non alphanumeric characters from a string.
+     * Get the number of times {@link #getString(Context, int, Object...)} found the
+     * parsed string resource in its cache.
+     */
+    public static int getStringTemplateHitCount() {
+        return StringTemplate.getHitCount();
+    }
+
+    /**
+     * Get the number of times {@link #getString(Context, int, Object...)} had to parse
+     * a string resource.
+     */
+    public static int getStringTemplateMissCount() {
+        return StringTemplate.getMissCount();
+    }
+
+    /**
+     * Remove non alphanumeric characters from a string. Letters, letter numbers and
+     * decimal digits of every script are kept.
      *
      * @param s String to process
-     * @return An alphanumeric string value
+     * @return An alphanumeric string value, or the same string if it is alphanumeric
      */
     @NonNull
     public static String getAlphaNumeric(@NonNull String s) {
-        return s.replaceAll("[^\\p{L}\\p{Nl}\\p{Nd}]", EMPTY_STRING);
+        int length = s.length();
+        int count = 0;
+        int runs = 0;
+        int runStart = 0;
+        boolean inRun = false;
+        int i = 0;
+        while (i < length) {
+            int codePoint = s.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            if (isAlphaNumeric(codePoint)) {
+                if (!inRun) {
+                    inRun = true;
+                    runStart = i;
+                    runs++;
+                }
+                count += charCount;
+            } else {
+                inRun = false;
+            }
+            i += charCount;
+        }
+        if (count == length) {
+            return s;
+        }
+        if (runs <= 1) {
+            // A single run is a substring, so only the result is allocated
+            return s.substring(runStart, runStart + count);
+        }
+        char[] chars = new char[count];
+        count = 0;
+        i = 0;
+        while (i < length) {
+            int codePoint = s.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            if (isAlphaNumeric(codePoint)) {
+                s.getChars(i, i + charCount, chars, count);
+                count += charCount;
+            }
+            i += charCount;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Remove non alphanumeric characters from a string into a buffer.
+     *
+     * @param s String to process
+     * @param out Buffer to append the alphanumeric characters to
+     */
+    public static void getAlphaNumeric(@NonNull CharSequence s, @NonNull StringBuilder out) {
+        try {
+            getAlphaNumeric(s, (Appendable) out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Remove non alphanumeric characters from a string into an appendable.
+     * Runs of alphanumeric characters are appended at once.
+     *
+     * @param s String to process
+     * @param out Appendable to append the alphanumeric characters to
+     * @throws IOException If the appendable fails
+     */
+    public static void getAlphaNumeric(@NonNull CharSequence s, @NonNull Appendable out) throws IOException {
+        int length = s.length();
+        int runStart = 0;
+        int i = 0;
+        while (i < length) {
+            int codePoint = Character.codePointAt(s, i);
+            int charCount = Character.charCount(codePoint);
+            if (!isAlphaNumeric(codePoint)) {
+                if (runStart < i) {
+                    out.append(s, runStart, i);
+                }
+                runStart = i + charCount;
+            }
+            i += charCount;
+        }
+        if (runStart < length) {
+            out.append(s, runStart, length);
+        }
     }
 
     /**
@@ -201,7 +387,7 @@ public final class StringExt {
      */
     @NonNull
     public static String joinWithInterpunct(@NonNull String first, @NonNull String second) {
-        return first + " • " + second;
+        return first + INTERPUNCT_SEPARATOR + second;
     }
 
     /**
@@ -214,10 +400,566 @@ public final class StringExt {
      */
     @NonNull
     public static String joinWithInterpunct(@NonNull String first, @NonNull String second, @NonNull String... others) {
-        String s = joinWithInterpunct(first, second);
-        for (String arg : others) {
-            s += joinWithInterpunct(s, arg);
+        int capacity = first.length() + second.length() + INTERPUNCT_SEPARATOR.length() * (others.length + 1);
+        for (String other : others) {
+            capacity += getLength(other);
+        }
+        StringBuilder builder = new StringBuilder(capacity);
+        builder.append(first).append(INTERPUNCT_SEPARATOR).append(second);
+        for (String other : others) {
+            builder.append(INTERPUNCT_SEPARATOR).append(other);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Join strings with a separator into a buffer sized up front.
+     *
+     * @param separator Separator between adjacent strings
+     * @param parts Strings to join
+     * @return Final string
+     */
+    @NonNull
+    public static String join(@NonNull CharSequence separator, @NonNull CharSequence... parts) {
+        if (parts.length == 0) {
+            return EMPTY_STRING;
+        }
+        int capacity = separator.length() * (parts.length - 1);
+        for (CharSequence part : parts) {
+            capacity += getLength(part);
+        }
+        StringBuilder builder = new StringBuilder(capacity);
+        appendJoined(builder, separator, parts);
+        return builder.toString();
+    }
+
+    /**
+     * Join strings with a separator. A collection is measured first, so the buffer
+     * is sized up front.
+     *
+     * @param separator Separator between adjacent strings
+     * @param parts Strings to join
+     * @return Final string
+     */
+    @NonNull
+    public static String join(@NonNull CharSequence separator, @NonNull Iterable<? extends CharSequence> parts) {
+        StringBuilder builder;
+        if (parts instanceof Collection) {
+            int size = ((Collection<?>) parts).size();
+            if (size == 0) {
+                return EMPTY_STRING;
+            }
+            int capacity = separator.length() * (size - 1);
+            for (CharSequence part : parts) {
+                capacity += getLength(part);
+            }
+            builder = new StringBuilder(capacity);
+        } else {
+            builder = new StringBuilder();
+        }
+        appendJoined(builder, separator, parts.iterator());
+        return builder.toString();
+    }
+
+    /**
+     * Join strings with a separator into an appendable.
+     *
+     * @param out Appendable to append the joined strings to
+     * @param separator Separator between adjacent strings
+     * @param parts Strings to join
+     * @return The appendable
+     * @throws IOException If the appendable fails
+     */
+    @NonNull
+    public static <A extends Appendable> A joinTo(@NonNull A out, @NonNull CharSequence separator,
+                                                  @NonNull CharSequence... parts) throws IOException {
+        appendJoined(out, separator, parts);
+        return out;
+    }
+
+    /**
+     * Join strings with a separator into an appendable, as the iterator yields them.
+     *
+     * @param out Appendable to append the joined strings to
+     * @param separator Separator between adjacent strings
+     * @param parts Strings to join
+     * @return The appendable
+     * @throws IOException If the appendable fails
+     */
+    @NonNull
+    public static <A extends Appendable> A joinTo(@NonNull A out, @NonNull CharSequence separator,
+                                                  @NonNull Iterator<? extends CharSequence> parts) throws IOException {
+        appendJoined(out, separator, parts);
+        return out;
+    }
+
+    private static void appendJoined(@NonNull StringBuilder out, @NonNull CharSequence separator,
+                                     @NonNull CharSequence[] parts) {
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            out.append(parts[i]);
+        }
+    }
+
+    private static void appendJoined(@NonNull StringBuilder out, @NonNull CharSequence separator,
+                                     @NonNull Iterator<? extends CharSequence> parts) {
+        if (parts.hasNext()) {
+            out.append(parts.next());
+            while (parts.hasNext()) {
+                out.append(separator).append(parts.next());
+            }
+        }
+    }
+
+    private static void appendJoined(@NonNull Appendable out, @NonNull CharSequence separator,
+                                     @NonNull CharSequence[] parts) throws IOException {
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                out.append(separator);
+            }
+            out.append(parts[i]);
+        }
+    }
+
+    private static void appendJoined(@NonNull Appendable out, @NonNull CharSequence separator,
+                                     @NonNull Iterator<? extends CharSequence> parts) throws IOException {
+        if (parts.hasNext()) {
+            out.append(parts.next());
+            while (parts.hasNext()) {
+                out.append(separator).append(parts.next());
+            }
         }
-        return s;
+    }
+
+    /**
+     * Length of a string as appended to a buffer, where null is appended as "null".
+     */
+    private static int getLength(@Nullable CharSequence s) {
+        return s != null ? s.length() : 4;
+    }
+
+    // Sorter of the last locale, which keeps the collation keys between sorts
+    private static CollationSorter collationSorter;
+    private static Locale collationLocale;
+
+    /**
+     * Sort a list of strings in the order of the collator of a locale. Collation keys are
+     * computed once per string and kept for later sorts in the same locale, and long
+     * lists are sorted in parallel.
+     *
+     * @param list List to sort, without null elements
+     * @param locale Locale to collate strings
+     */
+    public static void sortCollated(@NonNull List<String> list, @NonNull Locale locale) {
+        CollationSorter sorter;
+        synchronized (StringExt.class) {
+            if (collationSorter == null || !collationLocale.equals(locale)) {
+                collationSorter = new CollationSorter(locale);
+                collationLocale = locale;
+            }
+            sorter = collationSorter;
+        }
+        sorter.sort(list);
+    }
+
+    /**
+     * Append the search key of a string, which is its alphanumeric characters in lower case.
+     */
+    static void appendSearchKey(@NonNull CharSequence s, @NonNull StringBuilder out) {
+        int length = s.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = Character.codePointAt(s, i);
+            i += Character.charCount(codePoint);
+            if (isAlphaNumeric(codePoint)) {
+                out.appendCodePoint(Character.toLowerCase(codePoint));
+            }
+        }
+    }
+
+    private static int getLeftTrimIndex(@NonNull CharSequence s) {
+        int length = s.length();
+        int start = 0;
+        // Every space is in the BMP, so a surrogate is never trimmed
+        while (start < length && isSpace(s.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int getRightTrimIndex(@NonNull CharSequence s) {
+        int end = s.length();
+        while (end > 0 && isSpace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Whether a character is matched by the regex class \s, [\t\n\f\r\p{Z}].
+     */
+    private static boolean isSpace(char c) {
+        switch (c) {
+            case '\t':
+            case '\n':
+            case '\f':
+            case '\r':
+            case ' ':
+                return true;
+            default:
+                if (c < 0x80) {
+                    return false;
+                }
+                int type = Character.getType(c);
+                return type == Character.SPACE_SEPARATOR
+                        || type == Character.LINE_SEPARATOR
+                        || type == Character.PARAGRAPH_SEPARATOR;
+        }
+    }
+
+    /**
+     * Whether a code point is in \p{L}, \p{Nl} or \p{Nd}.
+     */
+    static boolean isAlphaNumeric(int codePoint) {
+        if (codePoint < 0x80) {
+            return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z')
+                    || (codePoint >= '0' && codePoint <= '9');
+        }
+        switch (Character.getType(codePoint)) {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.LETTER_NUMBER:
+            case Character.DECIMAL_DIGIT_NUMBER:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @NonNull
+    private static BitSet validate(@NonNull List<? extends CharSequence> list, boolean email) {
+        List<? extends CharSequence> rows = list instanceof RandomAccess ? list : new ArrayList<>(list);
+        // Chunks are multiples of 64 rows, so each chunk writes its own words
+        long[] words = new long[(rows.size() + 63) >>> 6];
+        ParallelWork.forEachChunk(rows.size(), VALIDATION_CHUNK_SIZE, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                CharSequence s = rows.get(i);
+                if (s != null && s.length() > 0 && (email ? isEmailAddress(s) : isWebUrl(s))) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Match the same addresses as {@link Patterns#EMAIL_ADDRESS}, which is
+     * [a-zA-Z0-9+._%-]{1,256} @ [a-zA-Z0-9][a-zA-Z0-9-]{0,64} (. [a-zA-Z0-9][a-zA-Z0-9-]{0,25})+
+     */
+    private static boolean isEmailAddress(@NonNull CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        while (i < length && isEmailLocalChar(s.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i > 256 || i == length || s.charAt(i) != '@') {
+            return false;
+        }
+        i++;
+        int labelCount = 0;
+        while (true) {
+            int start = i;
+            if (i == length || !isAsciiAlphaNumeric(s.charAt(i))) {
+                return false;
+            }
+            i++;
+            while (i < length && (isAsciiAlphaNumeric(s.charAt(i)) || s.charAt(i) == '-')) {
+                i++;
+            }
+            if (i - start > (labelCount == 0 ? 65 : 26)) {
+                return false;
+            }
+            labelCount++;
+            if (i == length) {
+                return labelCount > 1;
+            }
+            if (s.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Match the same URLs as {@link Patterns#WEB_URL}, which is
+     * [scheme :// [user info @]] (host name | IPv4 address) [: port] [(/ | ?) path]
+     */
+    private static boolean isWebUrl(@NonNull CharSequence s) {
+        int start = getWebUrlSchemeEnd(s);
+        if (start > 0) {
+            // The user info can not have an @, so only the first @ can end it
+            int at = indexOf(s, '@', start);
+            if (at > 0 && isWebUrlUserInfo(s, start, at) && isWebUrlAuthority(s, at + 1)) {
+                return true;
+            }
+        }
+        return isWebUrlAuthority(s, start);
+    }
+
+    private static int getWebUrlSchemeEnd(@NonNull CharSequence s) {
+        for (String scheme : WEB_URL_SCHEMES) {
+            int length = scheme.length();
+            if (s.length() < length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && toAsciiLowerCase(s.charAt(i)) == scheme.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * [a-zA-Z0-9$\-_.+!*'(),;?&=%]{1,64} (: [a-zA-Z0-9$\-_.+!*'(),;?&=%]{1,25})?
+     * where every % starts an escape and an escape counts as one character.
+     */
+    private static boolean isWebUrlUserInfo(@NonNull CharSequence s, int start, int end) {
+        boolean password = false;
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c == ':' && !password && count > 0) {
+                password = true;
+                count = 0;
+                i++;
+                continue;
+            }
+            if (c == '%') {
+                if (!isPercentEscape(s, i, end)) {
+                    return false;
+                }
+                i += 3;
+            } else if (isAsciiAlphaNumeric(c) || WEB_URL_USER_INFO_SYMBOLS.indexOf(c) >= 0) {
+                i++;
+            } else {
+                return false;
+            }
+            if (++count > (password ? 25 : 64)) {
+                return false;
+            }
+        }
+        return count > 0;
+    }
+
+    private static boolean isWebUrlAuthority(@NonNull CharSequence s, int start) {
+        int length = s.length();
+        int hostEnd = start;
+        while (hostEnd < length) {
+            char c = s.charAt(hostEnd);
+            if (c == ':' || c == '/' || c == '?') {
+                break;
+            }
+            hostEnd++;
+        }
+        if (!isHostName(s, start, hostEnd) && !isIpAddress(s, start, hostEnd)) {
+            return false;
+        }
+        int i = hostEnd;
+        if (i < length && s.charAt(i) == ':') {
+            int portStart = ++i;
+            while (i < length && isAsciiDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == portStart || i - portStart > 5) {
+                return false;
+            }
+        }
+        if (i == length) {
+            return true;
+        }
+        char c = s.charAt(i);
+        return (c == '/' || c == '?') && isWebUrlPath(s, i + 1);
+    }
+
+    /**
+     * (label .)+ top level domain, where a label is 1 to 63 IRI letters, digits, _ and -
+     * which starts and ends with a letter or digit.
+     */
+    private static boolean isHostName(@NonNull CharSequence s, int start, int end) {
+        int labelStart = start;
+        int labelCount = 0;
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == '.') {
+                if (!isHostLabel(s, labelStart, i)) {
+                    return false;
+                }
+                labelCount++;
+                labelStart = i + 1;
+            }
+        }
+        return labelCount > 0 && isTopLevelDomain(s, labelStart, end);
+    }
+
+    private static boolean isHostLabel(@NonNull CharSequence s, int start, int end) {
+        int count = 0;
+        boolean alphaNumeric = false;
+        int i = start;
+        while (i < end) {
+            int codePoint = Character.codePointAt(s, i);
+            alphaNumeric = codePoint < 0x80 ? isAsciiAlphaNumeric((char) codePoint) : isIriChar(codePoint);
+            if (!alphaNumeric && (count == 0 || (codePoint != '_' && codePoint != '-'))) {
+                return false;
+            }
+            count++;
+            i += Character.charCount(codePoint);
+        }
+        return count > 0 && count <= 63 && alphaNumeric;
+    }
+
+    /**
+     * xn-- [a-zA-Z0-9_-]{0,58} [a-zA-Z0-9_] or 2 to 63 IRI letters.
+     */
+    private static boolean isTopLevelDomain(@NonNull CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length >= 5 && length <= 63 && s.charAt(start) == 'x' && s.charAt(start + 1) == 'n'
+                && s.charAt(start + 2) == '-' && s.charAt(start + 3) == '-'
+                && s.charAt(end - 1) != '-') {
+            int i = start + 4;
+            while (i < end && (isAsciiAlphaNumeric(s.charAt(i)) || s.charAt(i) == '_' || s.charAt(i) == '-')) {
+                i++;
+            }
+            if (i == end) {
+                return true;
+            }
+        }
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            int codePoint = Character.codePointAt(s, i);
+            if (codePoint < 0x80 ? !isAsciiLetter((char) codePoint) : !isIriChar(codePoint)) {
+                return false;
+            }
+            count++;
+            i += Character.charCount(codePoint);
+        }
+        return count >= 2 && count <= 63;
+    }
+
+    /**
+     * Four octets of at most 255, where a two digit octet can not start with 0 and
+     * only the first octet can not be 0.
+     */
+    private static boolean isIpAddress(@NonNull CharSequence s, int start, int end) {
+        int i = start;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (i == end || s.charAt(i) != '.') {
+                    return false;
+                }
+                i++;
+            }
+            int octetStart = i;
+            int value = 0;
+            while (i < end && i - octetStart < 3 && isAsciiDigit(s.charAt(i))) {
+                value = value * 10 + s.charAt(i) - '0';
+                i++;
+            }
+            int digits = i - octetStart;
+            if (digits == 0 || value > 255
+                    || (digits == 2 && s.charAt(octetStart) == '0')
+                    || (digits == 1 && octet == 0 && value == 0)) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+    private static boolean isWebUrlPath(@NonNull CharSequence s, int start) {
+        int length = s.length();
+        int i = start;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c == '%') {
+                if (!isPercentEscape(s, i, length)) {
+                    return false;
+                }
+                i += 3;
+            } else if (c < 0x80) {
+                if (!isAsciiAlphaNumeric(c) && WEB_URL_PATH_SYMBOLS.indexOf(c) < 0) {
+                    return false;
+                }
+                i++;
+            } else {
+                int codePoint = Character.codePointAt(s, i);
+                if (!isIriChar(codePoint)) {
+                    return false;
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a non ASCII code point is an IRI character (RFC 3987 ucschar) which
+     * Patterns.WEB_URL allows, that is not a space.
+     */
+    private static boolean isIriChar(int codePoint) {
+        if (codePoint <= 0xD7FF) {
+            return codePoint > 0xA0 && (codePoint < 0x2000 || codePoint > 0x200A)
+                    && codePoint != 0x2028 && codePoint != 0x2029
+                    && codePoint != 0x202F && codePoint != 0x3000;
+        }
+        if (codePoint <= 0xFFFF) {
+            return (codePoint >= 0xF900 && codePoint <= 0xFDCF) || (codePoint >= 0xFDF0 && codePoint <= 0xFFEF);
+        }
+        if (codePoint < 0xE0000) {
+            return (codePoint & 0xFFFF) <= 0xFFFD;
+        }
+        return codePoint >= 0xE1000 && codePoint <= 0xEFFFD;
+    }
+
+    private static boolean isPercentEscape(@NonNull CharSequence s, int i, int end) {
+        return i + 2 < end && Character.digit(s.charAt(i + 1), 16) >= 0 && s.charAt(i + 1) < 0x80
+                && Character.digit(s.charAt(i + 2), 16) >= 0 && s.charAt(i + 2) < 0x80;
+    }
+
+    private static int indexOf(@NonNull CharSequence s, char c, int start) {
+        for (int i = start, length = s.length(); i < length; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static char toAsciiLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isEmailLocalChar(char c) {
+        return isAsciiAlphaNumeric(c) || c == '+' || c == '.' || c == '_' || c == '%' || c == '-';
+    }
+
+    private static boolean isAsciiAlphaNumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
+import androidx.core.os.ConfigurationCompat;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Formattable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A string resource parsed once into literal and argument segments. Templates of
+ * %s, %d, %n$s, %n$d, %% and %n are formatted by appending the arguments directly;
+ * any other template, or arguments of other types, go through {@link String#format}.
+ * Templates are cached per resources and flushed when the configuration changes.
+ */
+final class StringTemplate {
+    private static final Map<Resources, Templates> CACHE = new WeakHashMap<>();
+    private static int hitCount;
+    private static int missCount;
+
+    private final String pattern;
+    private final String[] literals;
+    // Argument index shifted left by one, with the low bit set for %d
+    private final int[] arguments;
+
+    private StringTemplate(@NonNull String pattern, @Nullable String[] literals, @Nullable int[] arguments) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Format a string resource the same as {@link Resources#getString(int, Object...)}.
+     */
+    @NonNull
+    static String format(@NonNull Resources resources, @StringRes int res, @NonNull Object... args) {
+        Templates templates;
+        StringTemplate template;
+        synchronized (CACHE) {
+            Configuration configuration = resources.getConfiguration();
+            templates = CACHE.get(resources);
+            if (templates == null || templates.configuration.diff(configuration) != 0) {
+                templates = new Templates(configuration);
+                CACHE.put(resources, templates);
+            }
+            template = templates.templates.get(res);
+            if (template != null) {
+                hitCount++;
+            } else {
+                missCount++;
+                template = compile(resources.getString(res));
+                templates.templates.put(res, template);
+            }
+        }
+        return template.format(templates.locale, templates.zeroDigit, args);
+    }
+
+    static int getHitCount() {
+        synchronized (CACHE) {
+            return hitCount;
+        }
+    }
+
+    static int getMissCount() {
+        synchronized (CACHE) {
+            return missCount;
+        }
+    }
+
+    @NonNull
+    static StringTemplate compile(@NonNull String pattern) {
+        int length = pattern.length();
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (pattern.charAt(i) == '%') {
+                count++;
+                i++;
+            }
+        }
+        String[] literals = new String[count + 1];
+        int[] arguments = new int[count];
+        int argumentCount = 0;
+        int ordinaryIndex = 0;
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i == length) {
+                return new StringTemplate(pattern, null, null);
+            }
+            c = pattern.charAt(i++);
+            if (c == '%') {
+                literal.append('%');
+                continue;
+            }
+            if (c == 'n') {
+                literal.append(System.lineSeparator());
+                continue;
+            }
+            int index;
+            if (c == 's' || c == 'd') {
+                index = ordinaryIndex++;
+            } else if (c >= '1' && c <= '9') {
+                index = c - '0';
+                while (i < length && pattern.charAt(i) >= '0' && pattern.charAt(i) <= '9' && index < 10000) {
+                    index = index * 10 + pattern.charAt(i++) - '0';
+                }
+                if (i + 1 >= length || pattern.charAt(i) != '$') {
+                    return new StringTemplate(pattern, null, null);
+                }
+                index--;
+                c = pattern.charAt(i + 1);
+                i += 2;
+            } else {
+                return new StringTemplate(pattern, null, null);
+            }
+            if (c != 's' && c != 'd') {
+                return new StringTemplate(pattern, null, null);
+            }
+            literals[argumentCount] = literal.toString();
+            arguments[argumentCount++] = index << 1 | (c == 'd' ? 1 : 0);
+            literal.setLength(0);
+        }
+        literals[argumentCount] = literal.toString();
+        if (argumentCount < count) {
+            String[] trimmedLiterals = new String[argumentCount + 1];
+            int[] trimmedArguments = new int[argumentCount];
+            System.arraycopy(literals, 0, trimmedLiterals, 0, argumentCount + 1);
+            System.arraycopy(arguments, 0, trimmedArguments, 0, argumentCount);
+            literals = trimmedLiterals;
+            arguments = trimmedArguments;
+        }
+        return new StringTemplate(pattern, literals, arguments);
+    }
+
+    @NonNull
+    String format(@NonNull Locale locale, char zeroDigit, @NonNull Object... args) {
+        if (literals == null) {
+            return String.format(locale, pattern, args);
+        }
+        StringBuilder builder = new StringBuilder(pattern.length() + arguments.length * 8);
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append(literals[i]);
+            int index = arguments[i] >> 1;
+            if (index >= args.length) {
+                // Let the formatter throw the same exception as before
+                return String.format(locale, pattern, args);
+            }
+            Object arg = args[index];
+            if ((arguments[i] & 1) != 0) {
+                if (!(arg instanceof Integer || arg instanceof Long
+                        || arg instanceof Short || arg instanceof Byte)) {
+                    return String.format(locale, pattern, args);
+                }
+                appendDecimal(builder, ((Number) arg).longValue(), zeroDigit);
+            } else {
+                if (arg instanceof Formattable) {
+                    return String.format(locale, pattern, args);
+                }
+                builder.append(arg);
+            }
+        }
+        builder.append(literals[arguments.length]);
+        return builder.toString();
+    }
+
+    private static void appendDecimal(@NonNull StringBuilder builder, long value, char zeroDigit) {
+        if (zeroDigit == '0') {
+            builder.append(value);
+            return;
+        }
+        int start = builder.length();
+        builder.append(value);
+        for (int i = start; i < builder.length(); i++) {
+            char c = builder.charAt(i);
+            if (c >= '0' && c <= '9') {
+                builder.setCharAt(i, (char) (zeroDigit + (c - '0')));
+            }
+        }
+    }
+
+    private static final class Templates {
+        final Configuration configuration;
+        final Locale locale;
+        final char zeroDigit;
+        final SparseArray<StringTemplate> templates = new SparseArray<>();
+
+        Templates(@NonNull Configuration configuration) {
+            this.configuration = new Configuration(configuration);
+            Locale locale = ConfigurationCompat.getLocales(configuration).get(0);
+            this.locale = locale != null ? locale : Locale.getDefault();
+            this.zeroDigit = DecimalFormatSymbols.getInstance(this.locale).getZeroDigit();
+        }
+    }
+}
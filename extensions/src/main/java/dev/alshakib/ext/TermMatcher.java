@@ -0,0 +1,307 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An Aho-Corasick matcher of a set of search terms, to highlight the terms in texts.
+ * Terms and texts are normalized the same as the keys of {@link SearchIndex}, so
+ * non alphanumeric characters are skipped and case is ignored, while match ranges
+ * are reported in the indices of the original text. A matcher is immutable and can
+ * be shared between threads; each thread needs its own {@link MatchBuffer}.
+ */
+public final class TermMatcher {
+    private static final int ROOT = 0;
+
+    // Transitions as an open addressed table of (state << 16 | char) to state
+    private final long[] transitionKeys;
+    private final int[] transitionStates;
+    private final int transitionMask;
+
+    private final int[] failures;
+    // Length of the longest term which ends at each state
+    private final int[] outputLengths;
+    private final int maxTermLength;
+
+    /**
+     * Create a matcher of terms.
+     *
+     * @param terms Terms to match
+     */
+    public TermMatcher(@NonNull CharSequence... terms) {
+        this(Arrays.asList(terms));
+    }
+
+    /**
+     * Create a matcher of terms.
+     *
+     * @param terms Terms to match
+     */
+    public TermMatcher(@NonNull Iterable<? extends CharSequence> terms) {
+        StringBuilder buffer = new StringBuilder();
+        int stateCount = 1;
+        int maxLength = 0;
+        for (CharSequence term : terms) {
+            if (term != null) {
+                buffer.setLength(0);
+                StringExt.appendSearchKey(term, buffer);
+                stateCount += buffer.length();
+                maxLength = Math.max(maxLength, buffer.length());
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(stateCount, 2) * 2 - 1) * 2;
+        transitionKeys = new long[capacity];
+        transitionStates = new int[capacity];
+        transitionMask = capacity - 1;
+        Arrays.fill(transitionKeys, -1L);
+        maxTermLength = maxLength;
+
+        int[] depths = new int[stateCount];
+        int[] terminalLengths = new int[stateCount];
+        int[] parents = new int[stateCount];
+        char[] parentChars = new char[stateCount];
+        int count = 1;
+        for (CharSequence term : terms) {
+            if (term == null) {
+                continue;
+            }
+            buffer.setLength(0);
+            StringExt.appendSearchKey(term, buffer);
+            if (buffer.length() == 0) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < buffer.length(); i++) {
+                char c = buffer.charAt(i);
+                int next = getTransition(state, c);
+                if (next < 0) {
+                    next = count++;
+                    putTransition(state, c, next);
+                    depths[next] = depths[state] + 1;
+                    parents[next] = state;
+                    parentChars[next] = c;
+                }
+                state = next;
+            }
+            terminalLengths[state] = buffer.length();
+        }
+
+        // States in order of depth, so each failure is computed before its children
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(depths[a], depths[b]));
+        failures = new int[count];
+        outputLengths = new int[count];
+        for (int i = 1; i < count; i++) {
+            int state = order[i];
+            int parent = parents[state];
+            int failure = ROOT;
+            if (parent != ROOT) {
+                failure = failures[parent];
+                while (true) {
+                    int next = getTransition(failure, parentChars[state]);
+                    if (next >= 0) {
+                        failure = next;
+                        break;
+                    }
+                    if (failure == ROOT) {
+                        break;
+                    }
+                    failure = failures[failure];
+                }
+            }
+            failures[state] = failure;
+            outputLengths[state] = terminalLengths[state] > 0
+                    ? terminalLengths[state] : outputLengths[failure];
+        }
+    }
+
+    /**
+     * Find the terms in a text. Overlapping and adjacent matches are merged into
+     * one range, so the ranges can be highlighted as they are.
+     *
+     * @param text Text to scan
+     * @param out Buffer to fill with the match ranges, in ascending order
+     * @return Number of match ranges
+     */
+    public int match(@NonNull CharSequence text, @NonNull MatchBuffer out) {
+        out.clear();
+        if (maxTermLength == 0) {
+            return 0;
+        }
+        int[] starts = out.getStartRing(maxTermLength);
+        int position = 0;
+        int state = ROOT;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = Character.codePointAt(text, i);
+            int charCount = Character.charCount(codePoint);
+            if (StringExt.isAlphaNumeric(codePoint)) {
+                int folded = Character.toLowerCase(codePoint);
+                if (Character.isBmpCodePoint(folded)) {
+                    state = step(state, (char) folded);
+                    starts[position++ % maxTermLength] = i;
+                } else {
+                    state = step(state, Character.highSurrogate(folded));
+                    starts[position++ % maxTermLength] = i;
+                    state = step(state, Character.lowSurrogate(folded));
+                    starts[position++ % maxTermLength] = i;
+                }
+                int matchLength = outputLengths[state];
+                if (matchLength > 0) {
+                    out.add(starts[(position - matchLength) % maxTermLength], i + charCount);
+                }
+            }
+            i += charCount;
+        }
+        return out.merge();
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int next = getTransition(state, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failures[state];
+        }
+    }
+
+    private int getTransition(int state, char c) {
+        long key = ((long) state << 16) | c;
+        int index = hash(key) & transitionMask;
+        while (true) {
+            long found = transitionKeys[index];
+            if (found == key) {
+                return transitionStates[index];
+            }
+            if (found == -1L) {
+                return -1;
+            }
+            index = (index + 1) & transitionMask;
+        }
+    }
+
+    private void putTransition(int state, char c, int next) {
+        long key = ((long) state << 16) | c;
+        int index = hash(key) & transitionMask;
+        while (transitionKeys[index] != -1L) {
+            index = (index + 1) & transitionMask;
+        }
+        transitionKeys[index] = key;
+        transitionStates[index] = next;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * A reusable buffer of match ranges, as start and end indices of the text.
+     */
+    public static final class MatchBuffer {
+        private int[] ranges = new int[16];
+        private int count;
+        private int[] startRing = new int[0];
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getStart(int index) {
+            return ranges[index * 2];
+        }
+
+        public int getEnd(int index) {
+            return ranges[index * 2 + 1];
+        }
+
+        void clear() {
+            count = 0;
+        }
+
+        @NonNull
+        int[] getStartRing(int length) {
+            if (startRing.length < length) {
+                startRing = new int[length];
+            }
+            return startRing;
+        }
+
+        void add(int start, int end) {
+            if (count * 2 == ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            ranges[count * 2] = start;
+            ranges[count * 2 + 1] = end;
+            count++;
+        }
+
+        /**
+         * Merge ranges which overlap or touch. Ranges are added in ascending order of
+         * their ends, so walking back from the last range joins each group in one pass.
+         */
+        int merge() {
+            if (count == 0) {
+                return 0;
+            }
+            int merged = 0;
+            int start = ranges[(count - 1) * 2];
+            int end = ranges[(count - 1) * 2 + 1];
+            for (int i = count - 2; i >= 0; i--) {
+                int rangeStart = ranges[i * 2];
+                int rangeEnd = ranges[i * 2 + 1];
+                if (rangeEnd >= start) {
+                    start = Math.min(start, rangeStart);
+                } else {
+                    // Merged ranges are written from the back, behind the ranges still to be read
+                    ranges[(count - 1 - merged) * 2] = start;
+                    ranges[(count - 1 - merged) * 2 + 1] = end;
+                    merged++;
+                    start = rangeStart;
+                    end = rangeEnd;
+                }
+            }
+            ranges[(count - 1 - merged) * 2] = start;
+            ranges[(count - 1 - merged) * 2 + 1] = end;
+            merged++;
+            System.arraycopy(ranges, (count - merged) * 2, ranges, 0, merged * 2);
+            count = merged;
+            return count;
+        }
+    }
+}
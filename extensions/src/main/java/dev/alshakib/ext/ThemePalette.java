@@ -0,0 +1,306 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.SparseIntArray;
+
+import androidx.annotation.AttrRes;
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A snapshot of the theme colors used by {@link ColorExt}. All colors are resolved
+ * in a single styled attributes pass and cached per theme, until the theme or the
+ * resources configuration changes. Other attributes resolved through a palette
+ * are memoized with it.
+ */
+public final class ThemePalette {
+    private static final int PRIMARY = 0;
+    private static final int PRIMARY_DARK = 1;
+    private static final int PRIMARY_VARIANT = 2;
+    private static final int ON_PRIMARY = 3;
+    private static final int SECONDARY = 4;
+    private static final int SECONDARY_VARIANT = 5;
+    private static final int ON_SECONDARY = 6;
+    private static final int ACCENT = 7;
+    private static final int BACKGROUND = 8;
+    private static final int ON_BACKGROUND = 9;
+    private static final int SURFACE = 10;
+    private static final int ON_SURFACE = 11;
+    private static final int ERROR = 12;
+    private static final int ON_ERROR = 13;
+
+    private static final int MAX_CACHED_COLORS = 64;
+    private static final int MAX_CACHED_COLOR_SETS = 16;
+
+    private static final int[] ATTRS;
+    private static final int[] ATTR_INDICES;
+
+    private static final Map<Resources.Theme, ThemePalette> PALETTES = new WeakHashMap<>();
+
+    static {
+        int[] attrs = new int[] {
+                R.attr.colorPrimary,
+                R.attr.colorPrimaryDark,
+                R.attr.colorPrimaryDark,
+                R.attr.colorOnPrimary,
+                R.attr.colorSecondary,
+                R.attr.colorSecondaryVariant,
+                R.attr.colorOnSecondary,
+                R.attr.colorAccent,
+                android.R.attr.colorBackground,
+                R.attr.colorOnBackground,
+                R.attr.colorSurface,
+                R.attr.colorOnSurface,
+                R.attr.colorError,
+                R.attr.colorOnError
+        };
+        int[] sorted = attrs.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        ATTRS = Arrays.copyOf(sorted, count);
+        ATTR_INDICES = new int[attrs.length];
+        for (int i = 0; i < attrs.length; i++) {
+            ATTR_INDICES[i] = Arrays.binarySearch(ATTRS, attrs[i]);
+        }
+    }
+
+    private final int[] colors;
+    private final Configuration configuration;
+
+    private final SparseIntArray cachedColors = new SparseIntArray();
+    private final List<int[]> cachedAttrSets = new ArrayList<>();
+    private final List<int[]> cachedColorSets = new ArrayList<>();
+
+    private ThemePalette(@NonNull int[] colors, @NonNull Configuration configuration) {
+        this.colors = colors;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the palette of the theme of a context.
+     *
+     * @param context Context to get the theme
+     * @return A palette of the theme colors
+     */
+    @NonNull
+    public static ThemePalette get(@NonNull Context context) {
+        Resources.Theme theme = context.getTheme();
+        Configuration current = context.getResources().getConfiguration();
+        synchronized (PALETTES) {
+            ThemePalette palette = PALETTES.get(theme);
+            if (palette != null && palette.configuration.diff(current) == 0) {
+                return palette;
+            }
+            palette = resolve(theme, current);
+            PALETTES.put(theme, palette);
+            return palette;
+        }
+    }
+
+    /**
+     * Drop the cached palettes of all themes, such as after a theme is modified in place.
+     */
+    public static void invalidate() {
+        synchronized (PALETTES) {
+            PALETTES.clear();
+        }
+    }
+
+    /**
+     * Drop the cached palette of a theme.
+     *
+     * @param theme Theme to drop the palette of
+     */
+    public static void invalidate(@NonNull Resources.Theme theme) {
+        synchronized (PALETTES) {
+            PALETTES.remove(theme);
+        }
+    }
+
+    @NonNull
+    private static ThemePalette resolve(@NonNull Resources.Theme theme, @NonNull Configuration configuration) {
+        int[] colors = new int[ATTR_INDICES.length];
+        TypedArray typedArray = null;
+        try {
+            typedArray = theme.obtainStyledAttributes(ATTRS);
+            for (int i = 0; i < ATTR_INDICES.length; i++) {
+                colors[i] = typedArray.getColor(ATTR_INDICES[i], 0);
+            }
+        } finally {
+            if (typedArray != null) {
+                typedArray.recycle();
+            }
+        }
+        return new ThemePalette(colors, new Configuration(configuration));
+    }
+
+    /**
+     * Resolve a color attribute of a theme, memoized with this palette.
+     */
+    @ColorInt
+    synchronized int getColor(@NonNull Resources.Theme theme, @AttrRes int attr) {
+        int index = cachedColors.indexOfKey(attr);
+        if (index >= 0) {
+            return cachedColors.valueAt(index);
+        }
+        int color;
+        TypedArray typedArray = null;
+        try {
+            typedArray = theme.obtainStyledAttributes(new int[] { attr });
+            color = typedArray.getColor(0, 0);
+        } finally {
+            if (typedArray != null) {
+                typedArray.recycle();
+            }
+        }
+        if (cachedColors.size() >= MAX_CACHED_COLORS) {
+            cachedColors.clear();
+        }
+        cachedColors.put(attr, color);
+        return color;
+    }
+
+    /**
+     * Resolve a set of color attributes of a theme in one pass, memoized with this palette.
+     * Sets are matched by content, so a reused attribute array is resolved once and
+     * copied without allocation afterwards.
+     */
+    synchronized void getColors(@NonNull Resources.Theme theme, @NonNull int[] attrs, @NonNull int[] colors) {
+        for (int i = 0; i < cachedAttrSets.size(); i++) {
+            int[] cachedAttrs = cachedAttrSets.get(i);
+            if (Arrays.equals(cachedAttrs, attrs)) {
+                System.arraycopy(cachedColorSets.get(i), 0, colors, 0, attrs.length);
+                return;
+            }
+        }
+        int[] resolved = new int[attrs.length];
+        TypedArray typedArray = null;
+        try {
+            typedArray = theme.obtainStyledAttributes(attrs);
+            for (int i = 0; i < attrs.length; i++) {
+                resolved[i] = typedArray.getColor(i, 0);
+            }
+        } finally {
+            if (typedArray != null) {
+                typedArray.recycle();
+            }
+        }
+        if (cachedAttrSets.size() >= MAX_CACHED_COLOR_SETS) {
+            cachedAttrSets.clear();
+            cachedColorSets.clear();
+        }
+        cachedAttrSets.add(attrs.clone());
+        cachedColorSets.add(resolved);
+        System.arraycopy(resolved, 0, colors, 0, attrs.length);
+    }
+
+    @ColorInt
+    public int getPrimaryColor() {
+        return colors[PRIMARY];
+    }
+
+    @ColorInt
+    public int getPrimaryDarkColor() {
+        return colors[PRIMARY_DARK];
+    }
+
+    @ColorInt
+    public int getPrimaryVariantColor() {
+        return colors[PRIMARY_VARIANT];
+    }
+
+    @ColorInt
+    public int getOnPrimaryColor() {
+        return colors[ON_PRIMARY];
+    }
+
+    @ColorInt
+    public int getSecondaryColor() {
+        return colors[SECONDARY];
+    }
+
+    @ColorInt
+    public int getSecondaryVariantColor() {
+        return colors[SECONDARY_VARIANT];
+    }
+
+    @ColorInt
+    public int getOnSecondaryColor() {
+        return colors[ON_SECONDARY];
+    }
+
+    @ColorInt
+    public int getAccentColor() {
+        return colors[ACCENT];
+    }
+
+    @ColorInt
+    public int getBackgroundColor() {
+        return colors[BACKGROUND];
+    }
+
+    @ColorInt
+    public int getOnBackgroundColor() {
+        return colors[ON_BACKGROUND];
+    }
+
+    @ColorInt
+    public int getSurfaceColor() {
+        return colors[SURFACE];
+    }
+
+    @ColorInt
+    public int getOnSurfaceColor() {
+        return colors[ON_SURFACE];
+    }
+
+    @ColorInt
+    public int getErrorColor() {
+        return colors[ERROR];
+    }
+
+    @ColorInt
+    public int getOnErrorColor() {
+        return colors[ON_ERROR];
+    }
+}
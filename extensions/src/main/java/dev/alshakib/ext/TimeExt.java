@@ -30,6 +30,7 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 
+import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 import java.util.Map;
 
@@ -39,6 +40,12 @@ public final class TimeExt {
     public final static int PLURAL_RES_HOURS = 3;
     public final static int PLURAL_RES_DAYS = 4;
     public final static int PLURAL_RES_WEEKS = 5;
+    public final static int PLURAL_RES_MONTHS = 6;
+    public final static int PLURAL_RES_YEARS = 7;
+
+    static final int MAX_TIME_LENGTH = 24;
+
+    private static volatile LocaleDigits localeDigits;
 
     /**
      * Get mm:ss or hh:mm:ss time from milliseconds.
@@ -48,14 +55,72 @@ public final class TimeExt {
      */
     @NonNull
     public static String getTime(long milliseconds) {
+        StringBuilder builder = new StringBuilder(MAX_TIME_LENGTH);
+        appendTime(builder, milliseconds, getZeroDigit(Locale.getDefault()));
+        return builder.toString();
+    }
+
+    /**
+     * Append mm:ss or hh:mm:ss time from milliseconds to a buffer, without allocation.
+     * Use {@link TimeFormatter} to also skip formatting while the second is unchanged.
+     *
+     * @param milliseconds Milliseconds to format
+     * @param out Buffer to append the time to
+     */
+    public static void getTime(long milliseconds, @NonNull StringBuilder out) {
+        appendTime(out, milliseconds, getZeroDigit(Locale.getDefault()));
+    }
+
+    /**
+     * Append a time the same as String.format("%02d:%02d") or "%02d:%02d:%02d" with the
+     * digits of a locale.
+     */
+    static void appendTime(@NonNull StringBuilder out, long milliseconds, char zeroDigit) {
         long minutes = (milliseconds / 1000) / 60;
         long seconds = (milliseconds / 1000) % 60;
-        if (minutes < 60) {
-            return String.format(Locale.getDefault(), "%02d:%02d", minutes, seconds);
-        } else {
-            long hours = minutes / 60;
+        if (minutes >= 60) {
+            appendTwoDigits(out, minutes / 60, zeroDigit);
+            out.append(':');
             minutes = minutes % 60;
-            return String.format(Locale.getDefault(), "%02d:%02d:%02d", hours, minutes, seconds);
+        }
+        appendTwoDigits(out, minutes, zeroDigit);
+        out.append(':');
+        appendTwoDigits(out, seconds, zeroDigit);
+    }
+
+    /**
+     * Get the zero digit of a locale, remembering the last locale asked for.
+     */
+    static char getZeroDigit(@NonNull Locale locale) {
+        LocaleDigits digits = localeDigits;
+        if (digits == null || !digits.locale.equals(locale)) {
+            digits = new LocaleDigits(locale);
+            localeDigits = digits;
+        }
+        return digits.zeroDigit;
+    }
+
+    /**
+     * Append a value the same as %02d: zero padded to two digits, with the sign in front
+     * of negative values, which are not padded.
+     */
+    private static void appendTwoDigits(@NonNull StringBuilder out, long value, char zeroDigit) {
+        if (value < 0) {
+            out.append('-');
+        } else if (value < 10) {
+            out.append(zeroDigit);
+        }
+        int start = out.length();
+        // Digits of the negated value, so that Long.MIN_VALUE has a magnitude
+        long remaining = value < 0 ? value : -value;
+        do {
+            out.append((char) (zeroDigit - remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        for (int i = start, j = out.length() - 1; i < j; i++, j--) {
+            char c = out.charAt(i);
+            out.setCharAt(i, out.charAt(j));
+            out.setCharAt(j, c);
         }
     }
 
@@ -68,33 +133,26 @@ public final class TimeExt {
      */
     @NonNull
     public static String getReadableTime(@NonNull Context context, long milliseconds) {
-        int seconds = (int) milliseconds / 1000;
-        if (seconds < 60) {
-            return context.getResources()
-                    .getQuantityString(R.plurals.time_in_seconds, seconds, seconds, seconds, seconds, seconds, seconds);
-        }
-        int minutes = (int) (milliseconds / 1000) / 60;
-        if (minutes < 60) {
-            return context.getResources()
-                    .getQuantityString(R.plurals.time_in_minutes, minutes, minutes, minutes, minutes, minutes, minutes);
-        }
-        int hours = minutes / 60;
-        if (hours < 24){
-            return context.getResources()
-                    .getQuantityString(R.plurals.time_in_hours, hours, hours, hours, hours, hours, hours);
-        }
-        int days = hours / 24;
-        if (days < 7) {
-            return context.getResources()
-                    .getQuantityString(R.plurals.time_in_days, days, days, days, days, days, days);
-        }
-        int weeks = days / 7;
-        return context.getResources()
-                .getQuantityString(R.plurals.time_in_weeks, weeks, weeks, weeks, weeks, weeks, weeks);
+        return ReadableTimeConfig.getDefault().format(context.getResources(), milliseconds);
+    }
+
+    /**
+     * Get readable time from milliseconds like 5 minutes or 7 hours etc.
+     *
+     * @param context Context to get plurals resources
+     * @param config Plural resources and units to format with. Build it once and reuse it.
+     * @param milliseconds Milliseconds to process
+     * @return A non nullable string of readable time
+     */
+    @NonNull
+    public static String getReadableTime(@NonNull Context context, @NonNull ReadableTimeConfig config, long milliseconds) {
+        return config.format(context.getResources(), milliseconds);
     }
 
     /**
      * Get readable time from milliseconds like 5 minutes or 7 hours etc.
+     * The map is converted on every call, use a {@link ReadableTimeConfig} instead
+     * to format many times.
      *
      * @param context Context to get plurals resources
      * @param resMap Map of plural resource ids.
@@ -109,48 +167,16 @@ public final class TimeExt {
         if (resMap.size() != 5) {
             throw new IllegalArgumentException("Invalid resMap size. Must be 5.");
         }
-        int seconds = (int) milliseconds / 1000;
-        if (seconds < 60) {
-            Integer res = resMap.get(PLURAL_RES_SECONDS);
-            if (res == null) {
-                res = R.plurals.time_in_seconds;
-            }
-            return context.getResources()
-                    .getQuantityString(res, seconds, seconds, seconds, seconds, seconds, seconds);
-        }
-        int minutes = (int) (milliseconds / 1000) / 60;
-        if (minutes < 60) {
-            Integer res = resMap.get(PLURAL_RES_MINUTES);
-            if (res == null) {
-                res = R.plurals.time_in_minutes;
-            }
-            return context.getResources()
-                    .getQuantityString(res, minutes, minutes, minutes, minutes, minutes, minutes);
-        }
-        int hours = minutes / 60;
-        if (hours < 24){
-            Integer res = resMap.get(PLURAL_RES_HOURS);
-            if (res == null) {
-                res = R.plurals.time_in_hours;
-            }
-            return context.getResources()
-                    .getQuantityString(res, hours, hours, hours, hours, hours, hours);
-        }
-        int days = hours / 24;
-        if (days < 7) {
-            Integer res = resMap.get(PLURAL_RES_DAYS);
-            if (res == null) {
-                res = R.plurals.time_in_days;
-            }
-            return context.getResources()
-                    .getQuantityString(res, days, days, days, days, days, days);
-        }
-        int weeks = days / 7;
-        Integer res = resMap.get(PLURAL_RES_WEEKS);
-        if (res == null) {
-            res = R.plurals.time_in_weeks;
+        return ReadableTimeConfig.fromMap(resMap).format(context.getResources(), milliseconds);
+    }
+
+    private static final class LocaleDigits {
+        final Locale locale;
+        final char zeroDigit;
+
+        LocaleDigits(@NonNull Locale locale) {
+            this.locale = locale;
+            this.zeroDigit = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
         }
-        return context.getResources()
-                .getQuantityString(res, weeks, weeks, weeks, weeks, weeks, weeks);
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * A reusable mm:ss or hh:mm:ss clock text, the same as {@link TimeExt#getTime(long)},
+ * for labels updated every frame. The text is only formatted again when the displayed
+ * second or the default locale changes, and it is kept in a char array which can be
+ * passed to TextView.setText(char[], int, int) without allocation.
+ */
+public final class TimeFormatter implements CharSequence {
+    private final StringBuilder builder = new StringBuilder(TimeExt.MAX_TIME_LENGTH);
+    private final char[] chars = new char[TimeExt.MAX_TIME_LENGTH];
+    private boolean hasTime;
+    private long displayedSeconds;
+    private char displayedZeroDigit;
+
+    /**
+     * Set the time to display.
+     *
+     * @param milliseconds Milliseconds to format
+     * @return true if the text changed
+     */
+    public boolean setTime(long milliseconds) {
+        long seconds = milliseconds / 1000;
+        char zeroDigit = TimeExt.getZeroDigit(Locale.getDefault());
+        if (hasTime && seconds == displayedSeconds && zeroDigit == displayedZeroDigit) {
+            return false;
+        }
+        builder.setLength(0);
+        TimeExt.appendTime(builder, milliseconds, zeroDigit);
+        builder.getChars(0, builder.length(), chars, 0);
+        hasTime = true;
+        displayedSeconds = seconds;
+        displayedZeroDigit = zeroDigit;
+        return true;
+    }
+
+    /**
+     * Set the time to display and get the text. The text is this formatter, so it
+     * changes with the next time set; use toString() to keep it.
+     *
+     * @param milliseconds Milliseconds to format
+     * @return The text of the time
+     */
+    @NonNull
+    public CharSequence format(long milliseconds) {
+        setTime(milliseconds);
+        return this;
+    }
+
+    /**
+     * Get the chars of the text, valid from 0 to {@link #length()}.
+     *
+     * @return The char array of the text
+     */
+    @NonNull
+    public char[] getChars() {
+        return chars;
+    }
+
+    @Override
+    public int length() {
+        return builder.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return builder.charAt(index);
+    }
+
+    @NonNull
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return builder.substring(start, end);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class BitmapConfigPolicyTest {
+    @Test
+    public void rgb565IsOnlyChosenForOpaqueContent() {
+        BitmapConfigPolicy policy = BitmapConfigPolicy.RGB_565_IF_OPAQUE;
+        assertEquals(Bitmap.Config.RGB_565, policy.getConfig(true));
+        assertEquals(Bitmap.Config.ARGB_8888, policy.getConfig(false));
+
+        Bitmap translucent = createBitmap(0x80FF0000);
+        assertSame(translucent, policy.apply(translucent, false, null));
+        assertFalse(translucent.isRecycled());
+
+        Bitmap opaque = createBitmap(Color.RED);
+        Bitmap converted = policy.apply(opaque, true, null);
+        assertEquals(Bitmap.Config.RGB_565, converted.getConfig());
+        assertEquals(Color.RED, converted.getPixel(0, 0));
+        assertTrue(opaque.isRecycled());
+    }
+
+    @Test
+    public void otherPoliciesKeepTheirConfig() {
+        for (boolean opaque : new boolean[] { true, false }) {
+            assertEquals(Bitmap.Config.ARGB_8888, BitmapConfigPolicy.ARGB_8888.getFinalConfig(opaque));
+            assertEquals(Bitmap.Config.ALPHA_8, BitmapConfigPolicy.ALPHA_8.getFinalConfig(opaque));
+            assertEquals(Bitmap.Config.ARGB_8888, BitmapConfigPolicy.HARDWARE.getConfig(opaque));
+        }
+        Bitmap bitmap = createBitmap(Color.RED);
+        assertSame(bitmap, BitmapConfigPolicy.ARGB_8888.apply(bitmap, true, null));
+        assertFalse(bitmap.isRecycled());
+    }
+
+    @Test
+    @Config(sdk = 25)
+    public void hardwareFallsBackBelowApi26() {
+        for (boolean opaque : new boolean[] { true, false }) {
+            assertEquals(Bitmap.Config.ARGB_8888, BitmapConfigPolicy.HARDWARE.getFinalConfig(opaque));
+        }
+        Bitmap bitmap = createBitmap(Color.RED);
+        assertSame(bitmap, BitmapConfigPolicy.HARDWARE.apply(bitmap, true, null));
+        assertFalse(bitmap.isRecycled());
+    }
+
+    @Test
+    @Config(sdk = 26)
+    public void hardwareIsUsedFromApi26() {
+        for (boolean opaque : new boolean[] { true, false }) {
+            assertEquals(Bitmap.Config.HARDWARE, BitmapConfigPolicy.HARDWARE.getFinalConfig(opaque));
+        }
+    }
+
+    private static Bitmap createBitmap(int color) {
+        Bitmap bitmap = Bitmap.createBitmap(4, 4, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        return bitmap;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class BitmapExtTest {
+    private static final int[][] COLLAGE_SIZES = {
+            { 64, 64 }, { 100, 80 }, { 101, 80 }, { 100, 81 }, { 101, 81 }, { 33, 47 }, { 2, 3 }
+    };
+    private static final int[][] SOURCE_SIZES = {
+            { 640, 480 }, { 480, 640 }, { 37, 53 }, { 1, 1 }, { 300, 300 }, { 7, 1000 }
+    };
+
+    /**
+     * Tiles drawn at an offset of the collage go through a different float rounding
+     * than a crop drawn at the origin, so a pixel may sample the source pixel next to
+     * the one the two step path sampled. The sources encode the coordinates of each
+     * pixel in its color, to check that no pixel samples further than that.
+     */
+    @Test
+    public void collageSamplesSameSourcePixelsAsTwoStepCrop() {
+        Random random = new Random(1);
+        for (int[] size : COLLAGE_SIZES) {
+            for (int count = 2; count <= 4; count++) {
+                List<Bitmap> sources = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    int[] sourceSize = SOURCE_SIZES[random.nextInt(SOURCE_SIZES.length)];
+                    sources.add(createCoordinates(sourceSize[0], sourceSize[1]));
+                }
+                Bitmap expected = getTwoStepCollage(sources, size[0], size[1]);
+                Bitmap actual = BitmapExt.getBitmapCollage(new ArrayList<>(sources), size[0], size[1]);
+                assertNotNull(actual);
+                String message = "Collage of " + count + " at " + size[0] + "x" + size[1];
+                for (int y = 0; y < size[1]; y++) {
+                    for (int x = 0; x < size[0]; x++) {
+                        int expectedColor = expected.getPixel(x, y);
+                        int actualColor = actual.getPixel(x, y);
+                        assertTrue(message + " at " + x + "," + y,
+                                Math.abs(getX(expectedColor) - getX(actualColor)) <= 1
+                                        && Math.abs(getY(expectedColor) - getY(actualColor)) <= 1);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void collageOfTilesAtOriginMatchesTwoStepCrop() {
+        Random random = new Random(3);
+        for (int[] size : COLLAGE_SIZES) {
+            for (int[] sourceSize : SOURCE_SIZES) {
+                Bitmap source = createNoise(random, sourceSize[0], sourceSize[1]);
+                List<Bitmap> sources = new ArrayList<>();
+                sources.add(source);
+                sources.add(source);
+                Bitmap expected = getTwoStepCollage(sources, size[0], size[1]);
+                Bitmap actual = BitmapExt.getBitmapCollage(sources, size[0], size[1]);
+                assertNotNull(actual);
+                int tileWidth = size[0] / 2;
+                for (int y = 0; y < size[1]; y++) {
+                    for (int x = 0; x < tileWidth; x++) {
+                        assertEquals("Collage at " + size[0] + "x" + size[1] + " at " + x + "," + y,
+                                expected.getPixel(x, y), actual.getPixel(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scaleToCenterCropMatchesTwoStepCrop() {
+        Random random = new Random(2);
+        float[][] sizes = { { 50f, 40f }, { 50.5f, 40f }, { 33.5f, 47.5f }, { 1f, 1f } };
+        for (int[] sourceSize : SOURCE_SIZES) {
+            Bitmap source = createNoise(random, sourceSize[0], sourceSize[1]);
+            for (float[] size : sizes) {
+                Bitmap expected = getTwoStepCrop(source, size[0], size[1]);
+                Bitmap actual = BitmapExt.scaleToCenterCrop(source, size[0], size[1]);
+                assertTrue("Crop of " + sourceSize[0] + "x" + sourceSize[1] + " to " + size[0] + "x" + size[1],
+                        expected.sameAs(actual));
+            }
+        }
+    }
+
+    // Source x in red and the low nibble of blue, source y in green and the high nibble
+    private static Bitmap createCoordinates(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = 0xFF000000 | (x & 0xFF) << 16 | (y & 0xFF) << 8
+                        | (y >> 8) << 4 | x >> 8;
+            }
+        }
+        return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private static int getX(int color) {
+        return (color >> 16 & 0xFF) | (color & 0x0F) << 8;
+    }
+
+    private static int getY(int color) {
+        return (color >> 8 & 0xFF) | (color >> 4 & 0x0F) << 8;
+    }
+
+    private static Bitmap createNoise(Random random, int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return Bitmap.createBitmap(pixels, width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    // The collage as it was drawn before the single pass: each tile cropped into an
+    // intermediate bitmap, which is then drawn into the tile
+    private static Bitmap getTwoStepCollage(List<Bitmap> bitmapList, int width, int height) {
+        Bitmap result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(result);
+        if (bitmapList.size() == 2) {
+            canvas.drawBitmap(getTwoStepCrop(bitmapList.get(0), width / 2f, height),
+                    null, new Rect(0, 0, width / 2, height), null);
+            canvas.drawBitmap(getTwoStepCrop(bitmapList.get(1), width / 2f, height),
+                    null, new Rect(width / 2, 0, width, height), null);
+            return result;
+        }
+        if (bitmapList.size() == 3) {
+            canvas.drawBitmap(getTwoStepCrop(bitmapList.get(0), width / 2F, height),
+                    null, new Rect(0, 0, width / 2, height), null);
+            canvas.drawBitmap(getTwoStepCrop(bitmapList.get(1), width / 2F, height / 2F),
+                    null, new Rect(width / 2, 0, width, height / 2), null);
+            canvas.drawBitmap(getTwoStepCrop(bitmapList.get(2), width / 2F, height / 2F),
+                    null, new Rect(width / 2, height / 2, width, height), null);
+            return result;
+        }
+        canvas.drawBitmap(getTwoStepCrop(bitmapList.get(0), width / 2F, height / 2F),
+                null, new Rect(0, 0, width / 2, height / 2), null);
+        canvas.drawBitmap(getTwoStepCrop(bitmapList.get(1), width / 2F, height / 2F),
+                null, new Rect(width / 2, 0, width, height / 2), null);
+        canvas.drawBitmap(getTwoStepCrop(bitmapList.get(2), width / 2F, height / 2F),
+                null, new Rect(0, height / 2, width / 2, height), null);
+        canvas.drawBitmap(getTwoStepCrop(bitmapList.get(3), width / 2F, height / 2F),
+                null, new Rect(width / 2, height / 2, width, height), null);
+        return result;
+    }
+
+    private static Bitmap getTwoStepCrop(Bitmap source, float width, float height) {
+        float sourceWidth = source.getWidth();
+        float sourceHeight = source.getHeight();
+
+        float xScale = width / sourceWidth;
+        float yScale = height / sourceHeight;
+        float scale = Math.max(xScale, yScale);
+
+        float scaledWidth = scale * sourceWidth;
+        float scaledHeight = scale * sourceHeight;
+
+        float left = (width - scaledWidth) / 2f;
+        float top = (height - scaledHeight) / 2f;
+
+        RectF targetRect = new RectF(left, top, left + scaledWidth, top + scaledHeight);
+
+        Bitmap dest = Bitmap.createBitmap((int) width, (int) height, source.getConfig());
+        Canvas canvas = new Canvas(dest);
+        canvas.drawBitmap(source, null, targetRect, null);
+
+        return dest;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class CollageCacheTest {
+    private static final List<String> ID_LIST = Arrays.asList("a", "b");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void memoryHitIsCounted() {
+        CollageCache cache = new CollageCache(1 << 20, null, 0);
+        String key = CollageCache.createKey(ID_LIST, 16, 16);
+        Bitmap bitmap = createBitmap(Color.RED);
+        cache.put(key, bitmap);
+        assertSame(bitmap, cache.get(key));
+        assertSame(bitmap, cache.getFromMemory(key));
+        assertEquals(2, cache.getMemoryHitCount());
+        assertEquals(0, cache.getDiskHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void missIsCounted() {
+        CollageCache cache = new CollageCache(1 << 20, temporaryFolder.getRoot(), 1 << 20);
+        assertNull(cache.get(CollageCache.createKey(ID_LIST, 16, 16)));
+        assertNull(cache.getFromMemory(CollageCache.createKey(ID_LIST, 16, 16)));
+        assertEquals(0, cache.getMemoryHitCount());
+        assertEquals(0, cache.getDiskHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void diskHitIsPromotedToMemory() {
+        CollageCache cache = new CollageCache(1 << 20, temporaryFolder.getRoot(), 1 << 20);
+        String key = CollageCache.createKey(ID_LIST, 16, 16);
+        Bitmap bitmap = createBitmap(Color.RED);
+        cache.put(key, bitmap);
+        cache.evictMemory();
+        assertNull(cache.getFromMemory(key));
+        Bitmap fromDisk = cache.get(key);
+        assertNotNull(fromDisk);
+        assertNotSame(bitmap, fromDisk);
+        assertEquals(16, fromDisk.getWidth());
+        assertEquals(16, fromDisk.getHeight());
+        assertEquals(Color.RED, fromDisk.getPixel(8, 8));
+        assertSame(fromDisk, cache.get(key));
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(1, cache.getDiskHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void diskTierEvictsLeastRecentlyUsed() {
+        File directory = temporaryFolder.getRoot();
+        CollageCache probe = new CollageCache(1 << 20, directory, 1 << 20);
+        probe.put(CollageCache.createKey(Collections.singletonList("probe"), 16, 16),
+                createBitmap(Color.RED));
+        long fileSize = probe.getDiskSize();
+        assertTrue(fileSize > 0);
+        probe.remove(CollageCache.createKey(Collections.singletonList("probe"), 16, 16));
+        assertEquals(0, probe.getDiskSize());
+
+        CollageCache cache = new CollageCache(1 << 20, directory, fileSize * 2 + fileSize / 2);
+        String first = CollageCache.createKey(Collections.singletonList("first"), 16, 16);
+        String second = CollageCache.createKey(Collections.singletonList("second"), 16, 16);
+        String third = CollageCache.createKey(Collections.singletonList("third"), 16, 16);
+        long now = System.currentTimeMillis();
+        cache.put(first, createBitmap(Color.RED));
+        backdate(directory, now - 2 * 60 * 60 * 1000);
+        cache.put(second, createBitmap(Color.RED));
+        backdate(directory, now - 60 * 60 * 1000);
+        cache.put(third, createBitmap(Color.RED));
+        assertEquals(fileSize * 2, cache.getDiskSize());
+        cache.evictMemory();
+        assertNull(cache.get(first));
+        assertNotNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(2, cache.getDiskHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void policyIsPartOfKey() {
+        String argbKey = CollageCache.createKey(ID_LIST, 16, 16, CollageLayout.DEFAULT,
+                BitmapConfigPolicy.ARGB_8888);
+        String rgbKey = CollageCache.createKey(ID_LIST, 16, 16, CollageLayout.DEFAULT,
+                BitmapConfigPolicy.RGB_565_IF_OPAQUE);
+        assertNotEquals(argbKey, rgbKey);
+        assertEquals(CollageCache.createKey(ID_LIST, 16, 16), CollageCache.createKey(ID_LIST, 16, 16,
+                CollageLayout.DEFAULT, BitmapConfigPolicy.getDefault()));
+
+        CollageCache cache = new CollageCache(1 << 20, temporaryFolder.getRoot(), 1 << 20);
+        Bitmap bitmap = createBitmap(Color.RED).copy(Bitmap.Config.RGB_565, false);
+        cache.put(rgbKey, bitmap);
+        assertNull(cache.get(argbKey));
+        cache.evictMemory();
+        Bitmap fromDisk = cache.get(rgbKey);
+        assertNotNull(fromDisk);
+        assertEquals(Bitmap.Config.RGB_565, fromDisk.getConfig());
+    }
+
+    private static Bitmap createBitmap(int color) {
+        Bitmap bitmap = Bitmap.createBitmap(16, 16, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        return bitmap;
+    }
+
+    private static void backdate(File directory, long time) {
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            if (file.lastModified() > time) {
+                assertTrue(file.setLastModified(time));
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class CollageTaskTest {
+    @Test
+    public void memoryCacheHitIsPostedToMainThread() throws Exception {
+        List<String> idList = Collections.singletonList("a");
+        CollageCache cache = new CollageCache(1 << 20, null, 0);
+        Bitmap cached = Bitmap.createBitmap(16, 16, Bitmap.Config.ARGB_8888);
+        cache.put(CollageCache.createKey(idList, 16, 16, CollageLayout.DEFAULT), cached);
+        List<Bitmap> results = new ArrayList<>();
+        Future<Bitmap> future = BitmapExt.getBitmapCollageAsync(new Object(),
+                Collections.singletonList(createSource()), idList, 16, 16, cache, results::add);
+        assertSame(cached, future.get());
+        assertTrue(results.isEmpty());
+        ShadowLooper.idleMainLooper();
+        assertEquals(1, results.size());
+        assertSame(cached, results.get(0));
+    }
+
+    @Test
+    public void supersededCollageIsRecycled() throws Exception {
+        Object target = new Object();
+        BitmapPool pool = new BitmapPool(1 << 20);
+        List<Bitmap> firstResults = new ArrayList<>();
+        Future<Bitmap> first = BitmapExt.getBitmapCollageAsync(target,
+                Collections.singletonList(createSource()), 16, 16, pool, firstResults::add);
+        while (!first.isDone()) {
+            Thread.sleep(1);
+        }
+        List<Bitmap> secondResults = new ArrayList<>();
+        Future<Bitmap> second = BitmapExt.getBitmapCollageAsync(target,
+                Collections.singletonList(createSource()), 16, 16, pool, secondResults::add);
+        second.get();
+        // Only the first collage can put a bitmap of the collage size into the pool
+        Bitmap recycled = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((recycled == null || secondResults.isEmpty()) && System.nanoTime() < deadline) {
+            ShadowLooper.idleMainLooper();
+            if (recycled == null) {
+                recycled = pool.getDirty(16, 16, Bitmap.Config.ARGB_8888);
+            }
+            Thread.sleep(1);
+        }
+        assertNotNull(recycled);
+        assertTrue(firstResults.isEmpty());
+        assertNull(first.get());
+        assertEquals(1, secondResults.size());
+        assertFalse(secondResults.get(0).isRecycled());
+    }
+
+    @Test
+    public void retrievedCollageIsNotRecycledWhenSuperseded() throws Exception {
+        Object target = new Object();
+        Future<Bitmap> first = BitmapExt.getBitmapCollageAsync(target,
+                Collections.singletonList(createSource()), 16, 16, null, bitmap -> { });
+        Bitmap retrieved = first.get();
+        assertNotNull(retrieved);
+        BitmapExt.getBitmapCollageAsync(target,
+                Collections.singletonList(createSource()), 16, 16, null, bitmap -> { }).get();
+        ShadowLooper.idleMainLooper();
+        assertFalse(retrieved.isRecycled());
+        assertSame(retrieved, first.get());
+    }
+
+    @Test
+    public void cancelRecyclesDecodedTiles() throws Exception {
+        Bitmap decoded = Bitmap.createBitmap(32, 32, Bitmap.Config.ARGB_8888);
+        CountDownLatch decodedLatch = new CountDownLatch(1);
+        CountDownLatch blockedLatch = new CountDownLatch(1);
+        BitmapSource fast = (reqWidth, reqHeight) -> {
+            decodedLatch.countDown();
+            return decoded;
+        };
+        BitmapSource blocked = (reqWidth, reqHeight) -> {
+            try {
+                blockedLatch.await();
+            } catch (InterruptedException ignored) { }
+            return null;
+        };
+        Future<Bitmap> future = BitmapExt.getBitmapCollageAsync(new Object(),
+                Arrays.asList(fast, blocked), 16, 16, null, bitmap -> { });
+        assertTrue(decodedLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(future.cancel(false));
+        blockedLatch.countDown();
+        // The tile is recycled by the cancel, or by its decode if it was not stored yet
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!decoded.isRecycled() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(decoded.isRecycled());
+    }
+
+    private static BitmapSource createSource() {
+        return (reqWidth, reqHeight) -> Bitmap.createBitmap(32, 32, Bitmap.Config.ARGB_8888);
+    }
+}
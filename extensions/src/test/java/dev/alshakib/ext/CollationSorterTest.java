@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class CollationSorterTest {
+    // Sizes on both sides of the parallel sort threshold
+    private static final int[] SIZES = { 0, 1, 2, 100, 8191, 8192, 8193, 20000 };
+    private static final String[] SYLLABLES = {
+            "a", "A", "á", "ä", "b", "c", "ch", "é", "e", "E", "o", "ö", "ø", "z", "Z", "å", "-", " ", "1"
+    };
+
+    @Test
+    public void sortMatchesCollectionsSort() {
+        Random random = new Random(18);
+        for (int strength : new int[] { Collator.PRIMARY, Collator.SECONDARY, Collator.TERTIARY }) {
+            Collator collator = Collator.getInstance(Locale.US);
+            // A weak strength makes distinct strings equal, which must keep their order
+            collator.setStrength(strength);
+            CollationSorter sorter = new CollationSorter(collator, 1000);
+            for (int size : SIZES) {
+                List<String> list = createList(random, size);
+                assertSortedLike(list, collator, sorter);
+                // The second sort uses cached keys
+                Collections.shuffle(list, random);
+                assertSortedLike(list, collator, sorter);
+            }
+        }
+    }
+
+    @Test
+    public void sortCollatedFollowsLocaleChanges() {
+        Random random = new Random(19);
+        Locale[] locales = { Locale.US, new Locale("sv", "SE"), Locale.GERMANY, new Locale("es"), Locale.US };
+        for (int size : new int[] { 500, 10000 }) {
+            List<String> list = createList(random, size);
+            for (Locale locale : locales) {
+                Collections.shuffle(list, random);
+                List<String> expected = new ArrayList<>(list);
+                Collections.sort(expected, Collator.getInstance(locale));
+                StringExt.sortCollated(list, locale);
+                assertEquals(locale.toString(), expected, list);
+            }
+        }
+    }
+
+    private static void assertSortedLike(List<String> list, Collator collator, CollationSorter sorter) {
+        List<String> expected = new ArrayList<>(list);
+        Collections.sort(expected, collator);
+        sorter.sort(list);
+        assertEquals(expected, list);
+    }
+
+    private static List<String> createList(Random random, int size) {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                builder.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            list.add(builder.toString());
+        }
+        return list;
+    }
+}
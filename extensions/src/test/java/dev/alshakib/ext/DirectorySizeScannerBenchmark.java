@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static dev.alshakib.ext.DirectorySizeScannerTest.FAN_OUT;
+import static dev.alshakib.ext.DirectorySizeScannerTest.FILES_PER_DIRECTORY;
+import static dev.alshakib.ext.DirectorySizeScannerTest.createTree;
+import static dev.alshakib.ext.DirectorySizeScannerTest.getSizeNaive;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times of scanning a directory tree, which depend on the machine, so only the sizes
+ * are asserted.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DirectorySizeScannerBenchmark {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void scanOf100kFiles() throws IOException {
+        File root = temporaryFolder.newFolder("tree");
+        // 10 * 10 * 10 leaf directories of 100 files each
+        long expected = createTree(root, 3, new Random(3));
+
+        long start = System.nanoTime();
+        assertEquals(expected, getSizeNaive(root));
+        long naiveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        assertEquals(expected, new DirectorySizeScanner(0).scan(root));
+        long uncachedNanos = System.nanoTime() - start;
+
+        DirectorySizeScanner scanner = new DirectorySizeScanner(2000);
+        start = System.nanoTime();
+        assertEquals(expected, scanner.scan(root));
+        long coldNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        assertEquals(expected, scanner.scan(root));
+        long warmNanos = System.nanoTime() - start;
+
+        System.out.printf("DirectorySizeScanner of %d files: naive walk %.1f ms, uncached scan %.1f ms, "
+                        + "cold scan %.1f ms, rescan %.1f ms%n",
+                FAN_OUT * FAN_OUT * FAN_OUT * FILES_PER_DIRECTORY, naiveNanos / 1e6,
+                uncachedNanos / 1e6, coldNanos / 1e6, warmNanos / 1e6);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class DirectorySizeScannerTest {
+    static final int FAN_OUT = 10;
+    static final int FILES_PER_DIRECTORY = 100;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void scanMatchesWalk() throws IOException {
+        File root = temporaryFolder.newFolder("tree");
+        long expected = createTree(root, 2, new Random(3));
+        assertEquals(expected, getSizeNaive(root));
+        for (DirectorySizeScanner scanner : new DirectorySizeScanner[] {
+                new DirectorySizeScanner(), new DirectorySizeScanner(0), new DirectorySizeScanner(5)
+        }) {
+            assertEquals(expected, scanner.scan(root));
+            // The second scan reuses what the scanner remembers
+            assertEquals(expected, scanner.scan(root));
+        }
+        assertEquals(expected, FileExt.getDirectorySize(root));
+        File file = new File(root, "d0/f0");
+        assertEquals(file.length(), new DirectorySizeScanner().scan(file));
+        assertEquals(0, new DirectorySizeScanner().scan(new File(root, "missing")));
+    }
+
+    @Test
+    public void canceledScanThrows() throws IOException {
+        File root = temporaryFolder.newFolder("tree");
+        createTree(root, 2, new Random(4));
+        CancellationSignal signal = new CancellationSignal();
+        signal.cancel();
+        try {
+            new DirectorySizeScanner().scan(root, signal, null);
+            fail();
+        } catch (OperationCanceledException expected) {
+            // Canceled before the scan
+        }
+
+        CancellationSignal laterSignal = new CancellationSignal();
+        List<Long> directories = new ArrayList<>();
+        try {
+            new DirectorySizeScanner().scan(root, laterSignal, (bytes, files, directoryCount) -> {
+                directories.add(directoryCount);
+                laterSignal.cancel();
+            });
+            fail();
+        } catch (OperationCanceledException expected) {
+            // Canceled while scanning
+        }
+        assertFalse(directories.isEmpty());
+        assertTrue(directories.size() < 1 + FAN_OUT + FAN_OUT * FAN_OUT);
+    }
+
+    @Test
+    public void progressIncreasesToTotals() throws IOException {
+        File root = temporaryFolder.newFolder("tree");
+        long expected = createTree(root, 2, new Random(5));
+        long expectedFiles = FAN_OUT * FAN_OUT * FILES_PER_DIRECTORY;
+        long expectedDirectories = 1 + FAN_OUT + FAN_OUT * FAN_OUT;
+        DirectorySizeScanner scanner = new DirectorySizeScanner();
+        for (int scan = 0; scan < 2; scan++) {
+            List<long[]> totals = new ArrayList<>();
+            long size = scanner.scan(root, null,
+                    (bytes, files, directories) -> totals.add(new long[] { bytes, files, directories }));
+            assertEquals(expected, size);
+            assertEquals(expectedDirectories, totals.size());
+            long[] previous = { 0, 0, 0 };
+            for (long[] total : totals) {
+                for (int i = 0; i < total.length; i++) {
+                    assertTrue(total[i] >= previous[i]);
+                }
+                previous = total;
+            }
+            assertEquals(expected, previous[0]);
+            assertEquals(expectedFiles, previous[1]);
+            assertEquals(expectedDirectories, previous[2]);
+        }
+    }
+
+    @Test
+    public void rescanSeesAddedAndDeletedEntries() throws IOException {
+        File root = temporaryFolder.newFolder("tree");
+        long expected = createTree(root, 2, new Random(6));
+        DirectorySizeScanner scanner = new DirectorySizeScanner();
+        assertEquals(expected, scanner.scan(root));
+
+        // Adding a file changes the modification time of the old subdirectory
+        File directory = new File(root, "d3/d7");
+        File added = createFile(new File(directory, "added"), 12345);
+        expected += 12345;
+        assertEquals(expected, scanner.scan(root));
+        backdate(directory);
+        assertEquals(expected, scanner.scan(root));
+
+        File deleted = new File(directory, "f42");
+        expected -= deleted.length();
+        assertTrue(deleted.delete());
+        assertEquals(expected, scanner.scan(root));
+        assertTrue(added.delete());
+        expected -= 12345;
+        backdate(directory);
+        assertEquals(expected, scanner.scan(root));
+
+        File subtree = new File(root, "d5");
+        expected -= getSizeNaive(subtree);
+        deleteTree(subtree);
+        assertEquals(expected, scanner.scan(root));
+        assertEquals(expected, getSizeNaive(root));
+    }
+
+    @Test
+    public void onlyScannersWhichRememberNothingSeeFilesChangedInPlace() throws IOException {
+        File root = temporaryFolder.newFolder("tree");
+        long expected = createTree(root, 1, new Random(7));
+        DirectorySizeScanner scanner = new DirectorySizeScanner();
+        DirectorySizeScanner uncachedScanner = new DirectorySizeScanner(0);
+        assertEquals(expected, scanner.scan(root));
+        assertEquals(expected, uncachedScanner.scan(root));
+
+        File file = new File(root, "d2/f0");
+        long modified = new File(root, "d2").lastModified();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(file.length() + 1000);
+        }
+        assertEquals(modified, new File(root, "d2").lastModified());
+        assertEquals(expected, scanner.scan(root));
+        assertEquals(expected + 1000, uncachedScanner.scan(root));
+        assertEquals(expected + 1000, FileExt.getDirectorySize(root));
+        scanner.clearCache();
+        assertEquals(expected + 1000, scanner.scan(root));
+    }
+
+    @Test
+    public void readableDirectorySizeMatchesReadableFileSize() throws IOException {
+        File root = temporaryFolder.newFolder("small");
+        long size = createTree(root, 1, new Random(5));
+        assertEquals(size, FileExt.getDirectorySize(root));
+        assertEquals(FileExt.readableFileSize(size), FileExt.readableDirectorySize(root));
+        assertEquals(FileExt.readableFileSize(size, FileExt.UNITS_SI),
+                FileExt.readableDirectorySize(root, FileExt.UNITS_SI));
+    }
+
+    static long createTree(File directory, int depth, Random random) throws IOException {
+        long size = 0;
+        if (depth == 0) {
+            for (int i = 0; i < FILES_PER_DIRECTORY; i++) {
+                long length = random.nextInt(1 << 20);
+                createFile(new File(directory, "f" + i), length);
+                size += length;
+            }
+        } else {
+            for (int i = 0; i < FAN_OUT; i++) {
+                File child = new File(directory, "d" + i);
+                assertTrue(child.mkdir());
+                size += createTree(child, depth - 1, random);
+            }
+        }
+        backdate(directory);
+        return size;
+    }
+
+    /**
+     * The walk the scanner replaces, on a single thread with nothing remembered.
+     */
+    static long getSizeNaive(File file) {
+        if (file.isFile()) {
+            return file.length();
+        }
+        long size = 0;
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                size += getSizeNaive(child);
+            }
+        }
+        return size;
+    }
+
+    private static File createFile(File file, long length) throws IOException {
+        // Sparse files, so the tree is quick to create
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(length);
+        }
+        return file;
+    }
+
+    // Directories modified in the last seconds are not remembered by the scanner
+    private static void backdate(File directory) {
+        assertTrue(directory.setLastModified(System.currentTimeMillis() - HOUR));
+    }
+
+    private static void deleteTree(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        assertTrue(file.delete());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Shader;
+import android.graphics.drawable.BitmapDrawable;
+import android.view.Gravity;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.GraphicsMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class DrawableExtTest {
+    @Test
+    public void getBitmapReturnsCopyOfBitmapDrawable() {
+        Bitmap source = createSource().copy(Bitmap.Config.ARGB_8888, false);
+        BitmapDrawable drawable = new BitmapDrawable(RuntimeEnvironment.getApplication().getResources(), source);
+        Bitmap bitmap = DrawableExt.getBitmap(drawable, 8, 8);
+        assertNotSame(source, bitmap);
+        assertTrue(bitmap.isMutable());
+        assertEquals(Color.RED, bitmap.getPixel(3, 5));
+        bitmap.recycle();
+        assertFalse(source.isRecycled());
+    }
+
+    @Test
+    public void getSharedBitmapReturnsBitmapOfBitmapDrawable() {
+        Bitmap source = createSource();
+        BitmapDrawable drawable = new BitmapDrawable(RuntimeEnvironment.getApplication().getResources(), source);
+        assertSame(source, DrawableExt.getSharedBitmap(drawable, 8, 8));
+        Bitmap scaled = DrawableExt.getSharedBitmap(drawable, 4, 4);
+        assertNotSame(source, scaled);
+        assertEquals(4, scaled.getWidth());
+    }
+
+    @Test
+    public void getSharedBitmapRendersTintedBitmapDrawable() {
+        Bitmap source = createSource();
+        BitmapDrawable drawable = new BitmapDrawable(RuntimeEnvironment.getApplication().getResources(), source);
+        drawable.setTint(Color.BLUE);
+        Bitmap bitmap = DrawableExt.getSharedBitmap(drawable, 8, 8);
+        assertNotSame(source, bitmap);
+        assertEquals(Color.BLUE, bitmap.getPixel(3, 5));
+        assertEquals(Color.RED, source.getPixel(3, 5));
+    }
+
+    @Test
+    public void getSharedBitmapRendersTiledBitmapDrawable() {
+        Bitmap source = createSource();
+        BitmapDrawable drawable = new BitmapDrawable(RuntimeEnvironment.getApplication().getResources(), source);
+        drawable.setTileModeXY(Shader.TileMode.REPEAT, Shader.TileMode.REPEAT);
+        assertNotSame(source, DrawableExt.getSharedBitmap(drawable, 8, 8));
+        drawable.setTileModeXY(null, null);
+        drawable.setGravity(Gravity.CENTER);
+        assertNotSame(source, DrawableExt.getSharedBitmap(drawable, 8, 8));
+        drawable.setGravity(Gravity.FILL);
+        assertSame(source, DrawableExt.getSharedBitmap(drawable, 8, 8));
+    }
+
+    private static Bitmap createSource() {
+        Bitmap bitmap = Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.RED);
+        return bitmap;
+    }
+}
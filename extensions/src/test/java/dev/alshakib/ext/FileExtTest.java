@@ -0,0 +1,242 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class FileExtTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String[][] UNIT_NAMES = new String[][] {
+            { "B", "KB", "MB", "GB", "TB", "PB", "EB" },
+            { "B", "kB", "MB", "GB", "TB", "PB", "EB" },
+            { "B", "KiB", "MiB", "GiB", "TiB", "PiB", "EiB" }
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void copyReplacesTarget() throws IOException {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+        File source = write(temporaryFolder.newFile("source"), content);
+        File target = write(temporaryFolder.newFile("t"), "old".getBytes(UTF_8));
+        assertEquals(content.length, FileExt.copy(source, target, null));
+        assertArrayEquals(content, read(target));
+        assertOnlyFiles("source", "t");
+    }
+
+    @Test
+    public void failedCopyKeepsTarget() throws IOException {
+        File target = write(temporaryFolder.newFile("target"), "old".getBytes(UTF_8));
+        try {
+            FileExt.copy(new File(temporaryFolder.getRoot(), "missing"), target, null);
+            fail();
+        } catch (IOException expected) {
+            // The source can not be opened
+        }
+        assertArrayEquals("old".getBytes(UTF_8), read(target));
+
+        File source = write(temporaryFolder.newFile("source"), "new".getBytes(UTF_8));
+        File directory = temporaryFolder.newFolder("directory");
+        try {
+            FileExt.copy(source, directory, null);
+            fail();
+        } catch (IOException expected) {
+            // A directory can not be replaced by a file
+        }
+        assertTrue(directory.isDirectory());
+        assertOnlyFiles("directory", "source", "target");
+    }
+
+    @Test
+    public void readableFileSizeMatchesDecimalFormat() throws IOException {
+        List<Long> sizes = new ArrayList<>();
+        Collections.addAll(sizes, -1L, 0L, 1L, 9L, 10L, 999L, 1000L, 1001L, 1023L, 1024L, 1025L,
+                1050L, 1075L, 1126L, 1127L, 1150L, 1250L, 1280L, 1792L, 2550L, 15950L, 102350L,
+                999949L, 999950L, 999999L, 1049600L, 1000500L, 1001500L);
+        for (int power = 1; power <= 5; power++) {
+            for (long unit : new long[] { pow(1000, power), pow(1024, power) }) {
+                for (long delta = -2; delta <= 2; delta++) {
+                    sizes.add(unit + delta);
+                }
+                // Midpoints of the first decimal digit, and the last one below the next unit
+                sizes.add(unit + unit / 20);
+                sizes.add(unit + unit / 20 * 3);
+                sizes.add(unit * 999 + unit / 20 * 19);
+                sizes.add(unit * 1023 + unit / 20 * 19);
+            }
+        }
+        Random random = new Random(23);
+        for (int i = 0; i < 20000; i++) {
+            sizes.add(random.nextLong() >>> random.nextInt(64));
+        }
+        // Doubles of larger sizes are not exact, see readableFileSizeOfLargeSizes
+        List<Long> exactSizes = new ArrayList<>();
+        for (long size : sizes) {
+            if (size < 1L << 53) {
+                exactSizes.add(size);
+            }
+        }
+        long[] sizeArray = new long[exactSizes.size()];
+        for (int i = 0; i < sizeArray.length; i++) {
+            sizeArray[i] = exactSizes.get(i);
+        }
+
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            for (Locale locale : new Locale[] {
+                    Locale.US, Locale.GERMANY, new Locale("fa", "IR"), new Locale("ar", "EG"), new Locale("hi", "IN")
+            }) {
+                Locale.setDefault(locale);
+                for (int units = FileExt.UNITS_BINARY; units <= FileExt.UNITS_IEC; units++) {
+                    String[] readableSizes = FileExt.readableFileSizes(sizeArray, units);
+                    StringBuilder builder = new StringBuilder();
+                    for (int i = 0; i < sizeArray.length; i++) {
+                        long size = sizeArray[i];
+                        String expected = formatFileSize(size, units);
+                        String message = size + " in " + locale + " units " + units;
+                        assertEquals(message, expected, FileExt.readableFileSize(size, units));
+                        assertEquals(message, expected, readableSizes[i]);
+                        builder.setLength(0);
+                        FileExt.readableFileSize(size, units, builder);
+                        assertEquals(message, expected, builder.toString());
+                    }
+                }
+                for (long size : sizeArray) {
+                    // The former formula had no unit above TB, and its logarithms pick
+                    // the next unit just below 1024 TB
+                    if (size < 1L << 49) {
+                        assertEquals(formerReadableFileSize(size), FileExt.readableFileSize(size));
+                    }
+                }
+            }
+            Locale.setDefault(new Locale("fa", "IR"));
+            assertEquals("\u06f1\u066b\u06f5 KB", FileExt.readableFileSize(1536));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void readableFileSizeOfLargeSizes() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.US);
+            assertEquals("1,024 TB", FileExt.readableFileSize(pow(1024, 5) - 1));
+            assertEquals("1 PB", FileExt.readableFileSize(pow(1024, 5)));
+            assertEquals("8 EB", FileExt.readableFileSize(Long.MAX_VALUE));
+            assertEquals("8 EiB", FileExt.readableFileSize(Long.MAX_VALUE, FileExt.UNITS_IEC));
+            assertEquals("9.2 EB", FileExt.readableFileSize(Long.MAX_VALUE, FileExt.UNITS_SI));
+            assertEquals("1 EB", FileExt.readableFileSize(pow(1000, 6), FileExt.UNITS_SI));
+            assertEquals("1,000 PB", FileExt.readableFileSize(pow(1000, 6) - 1, FileExt.UNITS_SI));
+            assertEquals("0 B", FileExt.readableFileSize(Long.MIN_VALUE, FileExt.UNITS_SI));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private void assertOnlyFiles(String... names) {
+        String[] list = temporaryFolder.getRoot().list();
+        assertFalse(list == null);
+        Arrays.sort(list);
+        assertArrayEquals(names, list);
+    }
+
+    private static File write(File file, byte[] content) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] content = new byte[(int) file.length()];
+        try (FileInputStream input = new FileInputStream(file)) {
+            int offset = 0;
+            int read;
+            while (offset < content.length && (read = input.read(content, offset, content.length - offset)) > 0) {
+                offset += read;
+            }
+        }
+        return content;
+    }
+    // The formula of readableFileSize before it stopped using DecimalFormat
+    private static String formerReadableFileSize(long size) {
+        if (size <= 0) return "0 B";
+        final String[] units = new String[] { "B", "KB", "MB", "GB", "TB" };
+        int digitGroups = (int) (Math.log10(size) / Math.log10(1024));
+        return new DecimalFormat("#,##0.#")
+                .format(size / Math.pow(1024, digitGroups)) + " " + units[digitGroups];
+    }
+
+    // The former formula with every unit, and with the unit chosen without floating point error
+    private static String formatFileSize(long size, int units) {
+        if (size <= 0) {
+            return "0 B";
+        }
+        String[] names = UNIT_NAMES[units];
+        int base = units == FileExt.UNITS_SI ? 1000 : 1024;
+        int group = 0;
+        while (group + 1 < names.length && size / pow(base, group) >= base) {
+            group++;
+        }
+        return new DecimalFormat("#,##0.#").format(size / Math.pow(base, group)) + " " + names[group];
+    }
+
+    private static long pow(long base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+}
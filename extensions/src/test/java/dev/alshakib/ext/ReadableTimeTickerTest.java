@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.app.Activity;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReadableTimeTickerTest {
+    private FrameLayout container;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        container = new FrameLayout(activity);
+        activity.setContentView(container);
+    }
+
+    @After
+    public void tearDown() {
+        ReadableTimeTicker.unregisterAll();
+    }
+
+    @Test
+    public void neverAttachedLabelIsNotTracked() {
+        TextView textView = new TextView(container.getContext());
+        ReadableTimeTicker.register(textView, System.currentTimeMillis());
+        assertNotEquals("", textView.getText().toString());
+        assertEquals(0, ReadableTimeTicker.getCount());
+
+        container.addView(textView);
+        assertEquals(1, ReadableTimeTicker.getCount());
+    }
+
+    @Test
+    public void detachedLabelPausesAndResumesWhenAttached() throws InterruptedException {
+        TextView textView = new TextView(container.getContext());
+        container.addView(textView);
+        ReadableTimeTicker.register(textView, System.currentTimeMillis());
+        assertEquals(1, ReadableTimeTicker.getCount());
+        String text = textView.getText().toString();
+
+        waitForNextSecond();
+        String ticked = textView.getText().toString();
+        assertNotEquals(text, ticked);
+
+        container.removeView(textView);
+        assertEquals(0, ReadableTimeTicker.getCount());
+        waitForNextSecond();
+        assertEquals(ticked, textView.getText().toString());
+
+        container.addView(textView);
+        assertEquals(1, ReadableTimeTicker.getCount());
+        assertNotEquals(ticked, textView.getText().toString());
+        String resumed = textView.getText().toString();
+        waitForNextSecond();
+        assertNotEquals(resumed, textView.getText().toString());
+    }
+
+    @Test
+    public void unregisteredLabelsStayUnregisteredWhenAttached() {
+        TextView first = new TextView(container.getContext());
+        TextView second = new TextView(container.getContext());
+        container.addView(first);
+        long now = System.currentTimeMillis();
+        ReadableTimeTicker.register(first, now);
+        ReadableTimeTicker.register(second, now);
+        container.removeView(first);
+
+        ReadableTimeTicker.unregister(first);
+        ReadableTimeTicker.unregisterAll();
+        container.addView(first);
+        container.addView(second);
+        assertEquals(0, ReadableTimeTicker.getCount());
+    }
+
+    /**
+     * Labels read the wall clock, which the looper does not move, so let a second pass
+     * and then run the frame callbacks which are due by then.
+     */
+    private static void waitForNextSecond() throws InterruptedException {
+        Thread.sleep(1100);
+        ShadowLooper.idleMainLooper(2, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchIndexTest {
+    private static final String[] WORDS = {
+            "Alpha", "beta", "Gamma", "delta", "épsilon", "Zeta", "eta", "THETA", "iota", "kappa",
+            "lambda", "mu", "nu", "xi", "omicron", "pi", "rho", "sigma", "tau", "upsilon", "фи",
+            "chi", "psi", "omega", "42", "2021"
+    };
+
+    @Test
+    public void searchMatchesLinearScan() {
+        Random random = new Random(7);
+        SearchIndex index = new SearchIndex();
+        Map<Integer, String> texts = new LinkedHashMap<>();
+        for (int round = 0; round < 20; round++) {
+            int[] ids = new int[500];
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = random.nextInt(4000);
+                batch.add(createText(random));
+            }
+            index.addAll(ids, batch);
+            for (int i = 0; i < ids.length; i++) {
+                texts.remove(ids[i]);
+                texts.put(ids[i], batch.get(i));
+            }
+            for (int i = 0; i < 200; i++) {
+                int id = random.nextInt(4000);
+                String text = createText(random);
+                index.add(id, text);
+                texts.remove(id);
+                texts.put(id, text);
+            }
+            // Enough removals to compact the index
+            for (int i = 0; i < 600; i++) {
+                int id = random.nextInt(4000);
+                assertEquals(texts.remove(id) != null, index.remove(id));
+            }
+            assertEquals(texts.size(), index.size());
+            for (int i = 0; i < 50; i++) {
+                String query = createQuery(random);
+                assertArrayEquals(query, searchLinear(texts, query), sort(index.search(query)));
+                assertArrayEquals(query, searchPrefixLinear(texts, query), sort(index.searchPrefix(query)));
+            }
+        }
+    }
+
+    @Test
+    public void benchmarkQueriesOf100kEntries() {
+        Random random = new Random(11);
+        int count = 100000;
+        int[] ids = new int[count];
+        List<String> texts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+            texts.add(createText(random));
+        }
+        long start = System.nanoTime();
+        SearchIndex index = new SearchIndex();
+        index.addAll(ids, texts);
+        long buildNanos = System.nanoTime() - start;
+
+        String[] queries = new String[200];
+        for (int i = 0; i < queries.length; i++) {
+            String text = texts.get(random.nextInt(count));
+            int from = random.nextInt(text.length() / 2);
+            queries[i] = text.substring(from, Math.min(text.length(), from + 3 + random.nextInt(6)));
+        }
+        for (String query : queries) {
+            index.search(query);
+            index.searchPrefix(query);
+        }
+        start = System.nanoTime();
+        for (String query : queries) {
+            index.search(query);
+        }
+        long searchNanos = (System.nanoTime() - start) / queries.length;
+        start = System.nanoTime();
+        for (String query : queries) {
+            index.searchPrefix(query);
+        }
+        long prefixNanos = (System.nanoTime() - start) / queries.length;
+        // The scan the index replaces, normalizing every text on every query
+        start = System.nanoTime();
+        int linearQueries = 10;
+        for (int i = 0; i < linearQueries; i++) {
+            String key = StringExt.getAlphaNumeric(queries[i]).toLowerCase();
+            for (String text : texts) {
+                StringExt.getAlphaNumeric(text).toLowerCase().contains(key);
+            }
+        }
+        long linearNanos = (System.nanoTime() - start) / linearQueries;
+        System.out.printf("SearchIndex of %d entries: build %.1f ms, search %.3f ms, "
+                        + "prefix %.3f ms, linear scan %.1f ms%n", count, buildNanos / 1e6,
+                searchNanos / 1e6, prefixNanos / 1e6, linearNanos / 1e6);
+        assertTrue("search " + searchNanos, searchNanos < 10000000);
+        assertTrue("prefix " + prefixNanos, prefixNanos < 10000000);
+    }
+
+    private static String createText(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int wordCount = 2 + random.nextInt(4);
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                sb.append(random.nextBoolean() ? ' ' : '-');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String createQuery(Random random) {
+        String text = createText(random);
+        int from = random.nextInt(text.length());
+        return text.substring(from, Math.min(text.length(), from + random.nextInt(8)));
+    }
+
+    private static String getKey(String s) {
+        StringBuilder sb = new StringBuilder();
+        StringExt.appendSearchKey(s, sb);
+        return sb.toString();
+    }
+
+    private static int[] searchLinear(Map<Integer, String> texts, String query) {
+        String key = getKey(query);
+        List<Integer> result = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+            if (getKey(entry.getValue()).contains(key)) {
+                result.add(entry.getKey());
+            }
+        }
+        return sort(result);
+    }
+
+    private static int[] searchPrefixLinear(Map<Integer, String> texts, String query) {
+        String key = getKey(query);
+        List<Integer> result = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+            if (getKey(entry.getValue()).startsWith(key)) {
+                result.add(entry.getKey());
+            }
+        }
+        return sort(result);
+    }
+
+    private static int[] sort(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return sort(array);
+    }
+
+    private static int[] sort(int[] array) {
+        int[] sorted = array.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
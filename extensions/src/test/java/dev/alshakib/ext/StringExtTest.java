@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.Context;
+import android.util.Patterns;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class StringExtTest {
+    private static final int SAMPLES = 200000;
+
+    // Each part is picked from the valid values most of the time, so that both
+    // outcomes are well covered
+    private static final String[][] SCHEMES = {
+            { "", "http://", "https://", "HTTP://", "rTsP://" },
+            { "ftp://", "http:/", "https//" }
+    };
+    private static final String[][] USER_INFOS = {
+            { "", "user@", "u:p@", "a%2Fb:c%3a@", "a?b@", repeat("u", 64) + "@",
+                    "u:" + repeat("p", 25) + "@", "$-_.+!*'(),;?&=@" },
+            { ":p@", "u:@", "u:p:q@", "a b@", "a%zz@", "@", repeat("u", 65) + "@",
+                    "u:" + repeat("p", 26) + "@" }
+    };
+    private static final String[][] LABELS = {
+            { "a", "foo", "x-y", "a_b", "1", "0", "000", "255", "ü", "例え", "😀", "xn--abc",
+                    "XN--abc", repeat("a", 63) },
+            { "-a", "a-", "_a", "", " ", "a b", "　", "﷐", "\ud83d", repeat("a", 64) }
+    };
+    private static final String[][] TOP_LEVEL_DOMAINS = {
+            { "com", "org", "üü", "😀😀", "xn--p1ai", "xn--a_", "xn--" + repeat("a", 59),
+                    repeat("a", 63) },
+            { "c", "co1", "xn--a-", "xn--", "xn--" + repeat("a", 60), repeat("a", 64), "1", "co-m", "" }
+    };
+    private static final String[][] PORTS = {
+            { "", ":80", ":12345" },
+            { ":", ":123456", ":8a", "::80" }
+    };
+    private static final String[][] PATHS = {
+            { "", "/", "?", "/a/b?c=d#e", "?q=1&r=2", "/%2F", "/ü", "/@x.com", "/~user/", "/😀" },
+            { "/%zz", "/%2", "/a b", "/ ", "/[x]", "/a\"b", "/\ud83d", "?　" }
+    };
+    private static final String MUTATIONS = "a0.-_:/?@%#&=~ ü  \ud83d[]\"<>\\|^`{}";
+
+    private static final String[][] LOCAL_PARTS = {
+            { "a", "user.name", "a+b", "a%b", "a_b-c", ".", "+", repeat("a", 256) },
+            { "", "a b", "a@b", "ü", repeat("a", 257) }
+    };
+    private static final String[][] EMAIL_LABELS = {
+            { "a", "example", "x-y", "a-", "1", repeat("a", 25), repeat("a", 64) },
+            { "-a", "a_b", "ü", repeat("a", 65), "" }
+    };
+
+    @Test
+    public void isValidWebUrlMatchesPattern() {
+        assertMatchesPattern(Patterns.WEB_URL, false, random -> {
+            StringBuilder sb = new StringBuilder();
+            String scheme = pick(random, SCHEMES);
+            sb.append(scheme);
+            if (!scheme.isEmpty()) {
+                sb.append(pick(random, USER_INFOS));
+            }
+            if (random.nextInt(4) == 0) {
+                for (int i = 0; i < 4; i++) {
+                    if (i > 0) {
+                        sb.append('.');
+                    }
+                    sb.append(random.nextInt(300));
+                }
+            } else {
+                int labelCount = 1 + random.nextInt(3);
+                for (int i = 0; i < labelCount; i++) {
+                    sb.append(pick(random, LABELS)).append('.');
+                }
+                sb.append(pick(random, TOP_LEVEL_DOMAINS));
+            }
+            sb.append(pick(random, PORTS)).append(pick(random, PATHS));
+            return sb;
+        });
+    }
+
+    @Test
+    public void isValidEmailMatchesPattern() {
+        assertMatchesPattern(Patterns.EMAIL_ADDRESS, true, random -> {
+            StringBuilder sb = new StringBuilder(pick(random, LOCAL_PARTS)).append('@');
+            int labelCount = 1 + random.nextInt(3);
+            for (int i = 0; i < labelCount; i++) {
+                if (i > 0) {
+                    sb.append('.');
+                }
+                sb.append(pick(random, EMAIL_LABELS));
+            }
+            return sb;
+        });
+    }
+
+    @Test
+    public void stringTemplateCountsAreExposed() {
+        Context context = RuntimeEnvironment.getApplication();
+        int hitCount = StringExt.getStringTemplateHitCount();
+        int missCount = StringExt.getStringTemplateMissCount();
+        String first = StringExt.getString(context, android.R.string.ok, 1);
+        String second = StringExt.getString(context, android.R.string.ok, 2);
+        assertEquals(context.getString(android.R.string.ok), first);
+        assertEquals(first, second);
+        assertEquals(missCount + 1, StringExt.getStringTemplateMissCount());
+        assertEquals(hitCount + 1, StringExt.getStringTemplateHitCount());
+    }
+
+    private static void assertMatchesPattern(Pattern pattern, boolean email, Generator generator) {
+        Random random = new Random(42);
+        int valid = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            StringBuilder sb = generator.generate(random);
+            int mutationCount = random.nextInt(3) == 0 ? 1 + random.nextInt(2) : 0;
+            for (int j = 0; j < mutationCount; j++) {
+                mutate(random, sb);
+            }
+            String s = sb.toString();
+            boolean expected = !s.isEmpty() && pattern.matcher(s).matches();
+            assertEquals(s, expected, email ? StringExt.isValidEmail(s) : StringExt.isValidWebUrl(s));
+            if (expected) {
+                valid++;
+            }
+        }
+        // Both outcomes have to be well covered for the comparison to mean anything
+        assertTrue("valid: " + valid, valid > SAMPLES / 10 && valid < SAMPLES * 9 / 10);
+    }
+
+    private static void mutate(Random random, StringBuilder sb) {
+        int position = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+        char c = MUTATIONS.charAt(random.nextInt(MUTATIONS.length()));
+        switch (random.nextInt(3)) {
+            case 0:
+                sb.insert(position, c);
+                break;
+            case 1:
+                if (sb.length() > 0) {
+                    sb.deleteCharAt(position);
+                }
+                break;
+            default:
+                if (sb.length() > 0) {
+                    sb.setCharAt(position, c);
+                }
+                break;
+        }
+    }
+
+    private static String pick(Random random, String[][] values) {
+        String[] pool = values[random.nextInt(8) == 0 ? 1 : 0];
+        return pool[random.nextInt(pool.length)];
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private interface Generator {
+        StringBuilder generate(Random random);
+    }
+}
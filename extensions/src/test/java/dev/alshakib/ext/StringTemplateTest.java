@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class StringTemplateTest {
+    private static final Locale[] LOCALES = {
+            Locale.US, Locale.GERMANY, new Locale("ar", "EG"), new Locale("fa", "IR"), new Locale("hi", "IN")
+    };
+
+    private final List<String> patterns = new ArrayList<>();
+    private Resources resources;
+
+    @Before
+    public void setUp() {
+        Resources base = RuntimeEnvironment.getApplication().getResources();
+        //noinspection deprecation
+        resources = new Resources(base.getAssets(), base.getDisplayMetrics(),
+                new Configuration(base.getConfiguration())) {
+            @Override
+            public String getString(int id) {
+                return patterns.get(id - 1);
+            }
+        };
+    }
+
+    @Test
+    public void directTemplatesMatchGetString() {
+        Formattable formattable = (formatter, flags, width, precision) -> formatter.format("formattable");
+        for (Locale locale : LOCALES) {
+            setLocale(locale);
+            assertSameAsGetString("Hello %s!", "world");
+            assertSameAsGetString("%s", (Object) null);
+            assertSameAsGetString("%s and %s", 3.5, 'c');
+            assertSameAsGetString("%s", formattable);
+            assertSameAsGetString("%d items", 42);
+            assertSameAsGetString("%d", -7);
+            assertSameAsGetString("%d %d", Long.MIN_VALUE, Long.MAX_VALUE);
+            assertSameAsGetString("%d/%d", (short) -12, (byte) 9);
+            assertSameAsGetString("%2$s before %1$s", "first", "second");
+            assertSameAsGetString("%1$s and %1$s, %2$d", "same", 1234567890);
+            assertSameAsGetString("%1$d %s %s", 5, "a", "b");
+            assertSameAsGetString("100%% done");
+            assertSameAsGetString("%d%%", 50);
+            assertSameAsGetString("line%nbreak");
+            assertSameAsGetString("no arguments");
+            assertSameAsGetString("");
+        }
+    }
+
+    @Test
+    public void otherTemplatesFallBackToStringFormat() {
+        for (Locale locale : LOCALES) {
+            setLocale(locale);
+            assertSameAsGetString("%.2f", 3.14159);
+            assertSameAsGetString("%x", 255);
+            assertSameAsGetString("%5d|%-5s|", 3, "a");
+            assertSameAsGetString("%,d", 1234567);
+            assertSameAsGetString("%S", "upper");
+            assertSameAsGetString("%b", true);
+            assertSameAsGetString("%d", "not a number");
+            assertSameAsGetString("%d", 2.5);
+            assertSameAsGetString("%s %s", "missing");
+            assertSameAsGetString("%3$s", "a", "b");
+            assertSameAsGetString("%0$s", "a");
+            assertSameAsGetString("trailing %");
+            assertSameAsGetString("%1$", "a");
+        }
+    }
+
+    @Test
+    public void templatesAreFlushedOnConfigurationChange() {
+        setLocale(Locale.US);
+        int id = addPattern("%d files in %s");
+        String english = StringTemplate.format(resources, id, 1234, "folder");
+        int missCount = StringTemplate.getMissCount();
+        int hitCount = StringTemplate.getHitCount();
+        assertEquals(english, StringTemplate.format(resources, id, 1234, "folder"));
+        assertEquals(hitCount + 1, StringTemplate.getHitCount());
+        assertEquals(missCount, StringTemplate.getMissCount());
+
+        setLocale(new Locale("fa", "IR"));
+        String persian = StringTemplate.format(resources, id, 1234, "folder");
+        assertEquals(resources.getString(id, 1234, "folder"), persian);
+        assertEquals(missCount + 1, StringTemplate.getMissCount());
+        assertNotEquals(english, persian);
+
+        setLocale(Locale.US);
+        assertEquals(english, StringTemplate.format(resources, id, 1234, "folder"));
+        assertEquals(missCount + 2, StringTemplate.getMissCount());
+    }
+
+    private void assertSameAsGetString(String pattern, Object... args) {
+        int id = addPattern(pattern);
+        String expected;
+        try {
+            expected = resources.getString(id, args);
+        } catch (RuntimeException e) {
+            try {
+                StringTemplate.format(resources, id, args);
+            } catch (RuntimeException actual) {
+                assertEquals(pattern, e.getClass(), actual.getClass());
+                return;
+            }
+            throw new AssertionError(pattern + " should throw " + e);
+        }
+        assertEquals(pattern, expected, StringTemplate.format(resources, id, args));
+        // The second call formats the cached template
+        assertEquals(pattern, expected, StringTemplate.format(resources, id, args));
+    }
+
+    private int addPattern(String pattern) {
+        patterns.add(pattern);
+        return patterns.size();
+    }
+
+    private void setLocale(Locale locale) {
+        Configuration configuration = new Configuration(resources.getConfiguration());
+        configuration.setLocale(locale);
+        //noinspection deprecation
+        resources.updateConfiguration(configuration, resources.getDisplayMetrics());
+    }
+}
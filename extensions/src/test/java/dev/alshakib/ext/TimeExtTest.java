@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Al Shakib (shakib@alshakib.dev)
+ *
+ * This file is part of Extensions
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.alshakib.ext;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class TimeExtTest {
+    private static final Locale[] LOCALES = {
+            Locale.US, new Locale("ar"), new Locale("ar", "EG"), new Locale("fa", "IR"),
+            new Locale("hi", "IN"), new Locale("th", "TH", "TH")
+    };
+    private static final long SECOND = 1000;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long[] TIMES = {
+            0, 1, 999, SECOND, 9 * SECOND + 999, 10 * SECOND, MINUTE - 1, MINUTE, 10 * MINUTE,
+            HOUR - 1, HOUR, HOUR + 999, 10 * HOUR - 1, 10 * HOUR, 24 * HOUR, 100 * HOUR, 99999 * HOUR,
+            -1, -999, -SECOND, -MINUTE + 1, -MINUTE, -HOUR + 1, -HOUR, -HOUR - SECOND, -100 * HOUR,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE / 2, Long.MAX_VALUE, Long.MIN_VALUE + 1,
+            Long.MIN_VALUE
+    };
+
+    private final Locale defaultLocale = Locale.getDefault();
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void getTimeMatchesStringFormat() {
+        Random random = new Random(19);
+        StringBuilder builder = new StringBuilder();
+        for (Locale locale : LOCALES) {
+            Locale.setDefault(locale);
+            for (long time : TIMES) {
+                assertSameAsFormat(time, builder);
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertSameAsFormat(random.nextLong() >> random.nextInt(64), builder);
+            }
+        }
+    }
+
+    @Test
+    public void timeFormatterMatchesStringFormat() {
+        TimeFormatter formatter = new TimeFormatter();
+        for (Locale locale : LOCALES) {
+            Locale.setDefault(locale);
+            for (long time : TIMES) {
+                String expected = format(time);
+                assertEquals(expected, formatter.format(time).toString());
+                assertEquals(expected, new String(formatter.getChars(), 0, formatter.length()));
+            }
+        }
+    }
+
+    @Test
+    public void timeFormatterOnlyFormatsNewSeconds() {
+        Locale.setDefault(Locale.US);
+        TimeFormatter formatter = new TimeFormatter();
+        assertTrue(formatter.setTime(HOUR + 5 * SECOND));
+        char[] chars = formatter.getChars();
+        assertEquals("01:00:05", formatter.toString());
+        // Overwrite the text, which must stay as it is until the second changes
+        chars[0] = 'x';
+        assertFalse(formatter.setTime(HOUR + 5 * SECOND + 999));
+        assertFalse(formatter.setTime(HOUR + 5 * SECOND + 1));
+        assertEquals('x', formatter.getChars()[0]);
+        assertSame(chars, formatter.getChars());
+        assertTrue(formatter.setTime(HOUR + 6 * SECOND));
+        assertEquals("01:00:06", new String(formatter.getChars(), 0, formatter.length()));
+
+        Locale.setDefault(new Locale("fa", "IR"));
+        assertTrue(formatter.setTime(HOUR + 6 * SECOND));
+        assertEquals(format(HOUR + 6 * SECOND), formatter.toString());
+        assertEquals("\u06f0\u06f1:\u06f0\u06f0:\u06f0\u06f6", formatter.toString());
+        assertFalse(formatter.setTime(HOUR + 6 * SECOND + 500));
+    }
+
+    private static void assertSameAsFormat(long time, StringBuilder builder) {
+        String expected = format(time);
+        assertEquals(time + " in " + Locale.getDefault(), expected, TimeExt.getTime(time));
+        builder.setLength(0);
+        builder.append("prefix ");
+        TimeExt.getTime(time, builder);
+        assertEquals("prefix " + expected, builder.toString());
+    }
+
+    // The formatting of TimeExt.getTime before it stopped using String.format
+    private static String format(long milliseconds) {
+        long minutes = (milliseconds / 1000) / 60;
+        long seconds = (milliseconds / 1000) % 60;
+        if (minutes < 60) {
+            return String.format(Locale.getDefault(), "%02d:%02d", minutes, seconds);
+        } else {
+            long hours = minutes / 60;
+            minutes = minutes % 60;
+            return String.format(Locale.getDefault(), "%02d:%02d:%02d", hours, minutes, seconds);
+        }
+    }
+}